@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.benchmark
+
+import org.springframework.beans.factory.annotation.Value
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.context.annotation.Bean
+import org.springframework.context.annotation.Configuration
+import org.thymeleaf.templatemode.TemplateMode
+import org.thymeleaf.templateresolver.FileTemplateResolver
+import org.thymeleaf.templateresolver.ITemplateResolver
+
+/**
+ * Serves the templates of a generated template corpus, written out by the
+ * {@code TemplateCorpus} class of the JMH benchmarks module, from the directory
+ * given in the {@code benchmark.corpus} property.
+ * 
+ * @author zhanhb
+ */
+@Configuration
+@ConditionalOnProperty('benchmark.corpus')
+class CorpusConfiguration {
+
+	/**
+	 * Template resolver for the {@code corpus/} templates, checked ahead of the
+	 * ones in the application.
+	 * 
+	 * @param corpus
+	 * @return Template resolver over the corpus directory.
+	 */
+	@Bean
+	ITemplateResolver corpusTemplateResolver(@Value('${benchmark.corpus}') String corpus) {
+
+		return new FileTemplateResolver(
+			prefix: corpus + '/',
+			suffix: '.html',
+			templateMode: TemplateMode.HTML,
+			characterEncoding: 'UTF-8',
+			resolvablePatterns: ['corpus/*'] as Set,
+			checkExistence: true,
+			order: 0
+		)
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.benchmark
+
+import groovy.transform.CompileStatic
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import org.HdrHistogram.Histogram
+import org.springframework.boot.SpringApplication
+
+/**
+ * Puts the benchmarking application under load without the need for JMeter:
+ * has a fixed number of threads request a page over and over, first for a
+ * warm-up period and then for the measured period, and prints the throughput
+ * and latency distribution of the measured requests.
+ * <p>
+ * Given the {@code load.url} of an application already running in another
+ * process, the load is run against that.  Otherwise the application is started
+ * with an embedded server on a free port in this JVM, which is quicker to set
+ * up but means that the application shares its heap, garbage collector and CPU
+ * with the threads making the requests, so the results include the cost of
+ * the driver as well.  Use a separate process for numbers to compare with the
+ * JMeter test plan, or when profiling the application.
+ * <p>
+ * Each run is configured through system properties, with any arguments passed
+ * on to the application when it is started here (eg:
+ * {@code --benchmark.corpus=target/templates}):
+ * <ul>
+ *   <li>{@code load.url}: address of an already running application, eg:
+ *       {@code http://localhost:8080}, if not starting one in this JVM</li>
+ *   <li>{@code load.path}: the page to request, default {@code /test}</li>
+ *   <li>{@code load.threads}: number of concurrent requests, default 50</li>
+ *   <li>{@code load.warmup}: seconds to warm up for, default 10</li>
+ *   <li>{@code load.duration}: seconds to measure for, default 60</li>
+ *   <li>{@code load.report}: file to also write the full HdrHistogram
+ *       percentile distribution to, if set</li>
+ * </ul>
+ *
+ * @author zhanhb
+ */
+class LoadDriver {
+
+	static final String BASE_URL = System.getProperty('load.url')
+	static final String PATH = System.getProperty('load.path', '/test')
+	static final int THREADS = Integer.getInteger('load.threads', 50)
+	static final int WARMUP_SECONDS = Integer.getInteger('load.warmup', 10)
+	static final int DURATION_SECONDS = Integer.getInteger('load.duration', 60)
+	static final String REPORT = System.getProperty('load.report')
+
+	// Latencies are recorded in nanoseconds and reported in milliseconds
+	private static final double REPORT_SCALE = TimeUnit.MILLISECONDS.toNanos(1)
+
+	/**
+	 * Run the load against the application at {@code load.url}, or against one
+	 * started here if that isn't set.
+	 *
+	 * @param args
+	 */
+	static void main(String[] args) {
+
+		def exitCode
+		if (BASE_URL) {
+			exitCode = run(new URL(BASE_URL.replaceFirst('/$', '') + PATH))
+		}
+		else {
+			def application = SpringApplication.run(BenchmarkApplication, (['--server.port=0'] + (args as List)) as String[])
+			try {
+				def port = application.environment.getRequiredProperty('local.server.port', Integer)
+				exitCode = run(new URL("http://localhost:${port}${PATH}"))
+			}
+			finally {
+				SpringApplication.exit(application)
+			}
+		}
+		System.exit(exitCode)
+	}
+
+	/**
+	 * Warm up and then measure the URL, reporting the results.
+	 *
+	 * @param url
+	 * @return Exit code for the run, non-zero if any measured request failed.
+	 */
+	private static int run(URL url) {
+
+		def executor = Executors.newFixedThreadPool(THREADS)
+		try {
+			println "Warming up ${url} with ${THREADS} threads for ${WARMUP_SECONDS}s"
+			drive(executor, url, TimeUnit.SECONDS.toNanos(WARMUP_SECONDS))
+
+			println "Measuring ${url} with ${THREADS} threads for ${DURATION_SECONDS}s"
+			def errors = new AtomicLong()
+			def start = System.nanoTime()
+			def histogram = drive(executor, url, TimeUnit.SECONDS.toNanos(DURATION_SECONDS), errors)
+			def elapsedSeconds = (System.nanoTime() - start) / TimeUnit.SECONDS.toNanos(1)
+			report(histogram, elapsedSeconds, errors.get())
+			return errors.get() > 0 ? 1 : 0
+		}
+		finally {
+			executor.shutdownNow()
+		}
+	}
+
+	/**
+	 * Have every thread of the executor request the URL until the duration is up.
+	 *
+	 * @param executor
+	 * @param url
+	 * @param durationNanos
+	 * @param errors Counter of failed requests, or {@code null} to ignore them.
+	 * @return Latencies of all the successful requests.
+	 */
+	private static Histogram drive(ExecutorService executor, URL url, long durationNanos, AtomicLong errors = null) {
+
+		def deadline = System.nanoTime() + durationNanos
+		def results = (1..THREADS).collect {
+			executor.submit({ ->
+				return requestUntil(url, deadline, errors)
+			} as Callable<Histogram>)
+		}
+		def histogram = new Histogram(3)
+		results.each { Future<Histogram> result ->
+			histogram.add(result.get())
+		}
+		return histogram
+	}
+
+	/**
+	 * Request the URL over and over until the deadline, recording the latency of
+	 * each successful request.
+	 *
+	 * @param url
+	 * @param deadline
+	 * @param errors
+	 * @return Latencies of this thread's requests.
+	 */
+	@CompileStatic
+	private static Histogram requestUntil(URL url, long deadline, AtomicLong errors) {
+
+		def histogram = new Histogram(3)
+		def buffer = new byte[8192]
+		while (System.nanoTime() < deadline) {
+			def start = System.nanoTime()
+			try {
+				def connection = url.openConnection() as HttpURLConnection
+				def ok = connection.responseCode == HttpURLConnection.HTTP_OK
+				def input = ok ? connection.inputStream : connection.errorStream
+				if (input) {
+					try {
+						while (input.read(buffer) != -1) {
+							// Read the whole response so that the connection can be reused
+						}
+					}
+					finally {
+						input.close()
+					}
+				}
+				if (ok) {
+					histogram.recordValue(System.nanoTime() - start)
+				}
+				else {
+					errors?.incrementAndGet()
+				}
+			}
+			catch (IOException ignored) {
+				errors?.incrementAndGet()
+			}
+		}
+		return histogram
+	}
+
+	/**
+	 * Print the throughput and latencies of a measured run, and write the full
+	 * percentile distribution to the report file if there is one.
+	 *
+	 * @param histogram
+	 * @param elapsedSeconds
+	 * @param errors
+	 */
+	private static void report(Histogram histogram, BigDecimal elapsedSeconds, long errors) {
+
+		def milliseconds = { long nanos ->
+			String.format('%.3f ms', nanos / REPORT_SCALE)
+		}
+		println "Requests:   ${histogram.totalCount} (${errors} errors)"
+		println "Throughput: ${String.format('%.1f', histogram.totalCount / elapsedSeconds)} requests/s"
+		println "Latency:    p50 ${milliseconds(histogram.getValueAtPercentile(50))}, " +
+			"p99 ${milliseconds(histogram.getValueAtPercentile(99))}, " +
+			"p99.9 ${milliseconds(histogram.getValueAtPercentile(99.9))}, " +
+			"max ${milliseconds(histogram.maxValue)}"
+		histogram.outputPercentileDistribution(System.out, REPORT_SCALE)
+
+		if (REPORT) {
+			def reportFile = new File(REPORT)
+			reportFile.parentFile?.mkdirs()
+			new PrintStream(reportFile, 'UTF-8').withCloseable { stream ->
+				histogram.outputPercentileDistribution(stream, REPORT_SCALE)
+			}
+			println "Percentile distribution written to ${reportFile.absolutePath}"
+		}
+	}
+}
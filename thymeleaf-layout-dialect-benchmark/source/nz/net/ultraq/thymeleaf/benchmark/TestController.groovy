@@ -38,4 +38,16 @@ class TestController {
 
 		return 'Content'
 	}
+
+	/**
+	 * Returns the content template of a generated template corpus, see
+	 * {@link CorpusConfiguration}.
+	 * 
+	 * @return "corpus/Content"
+	 */
+	@RequestMapping(value = 'corpus', method = GET)
+	String corpus() {
+
+		return 'corpus/Content'
+	}
 }
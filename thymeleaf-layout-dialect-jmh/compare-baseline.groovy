@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Compares the JSON results of a JMH run against a recorded baseline, run
+ * by the jmh-baseline profile.  Fails the build when any benchmark got slower
+ * by more than the tolerance (as a percentage of its baseline score, whichever
+ * way is better for its mode), or allocates more per operation than the
+ * allocation tolerance allows.  Benchmarks without a baseline are reported but
+ * don't fail the build, although a baseline that none of the results could be
+ * compared against, like one that hasn't been recorded yet, does.  With
+ * updateBaseline set, the results replace the baseline instead.
+ *
+ * Bound by the plugin configuration: baselineFile, resultsFile, tolerance,
+ * allocationTolerance and updateBaseline.
+ */
+
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+
+def results = new File(resultsFile)
+def baseline = new File(baselineFile)
+if (!results.exists()) {
+	throw new IllegalStateException("No JMH results found at ${results}")
+}
+
+if (Boolean.parseBoolean(updateBaseline)) {
+	baseline.setText(JsonOutput.prettyPrint(results.getText('UTF-8')) + '\n', 'UTF-8')
+	log.info("Baseline ${baseline} updated from ${results}")
+	return
+}
+
+// Benchmarks are matched by their name and parameter values
+def key = { result ->
+	return result.params ? "${result.benchmark} ${new TreeMap(result.params)}" : result.benchmark
+}
+def allocation = { result ->
+	return result.secondaryMetrics?.find { name, metric -> name.endsWith('gc.alloc.rate.norm') }?.value?.score
+}
+
+def baselineResults = baseline.exists() ? new JsonSlurper().parse(baseline, 'UTF-8').collectEntries { result ->
+	return [(key(result)): result]
+} : [:]
+if (!baselineResults) {
+	throw new IllegalStateException("No baseline results found in ${baseline}, " +
+		"record one on the reference machine with -Djmh.updateBaseline=true")
+}
+
+def scoreLimit = (tolerance as BigDecimal) / 100
+def allocationLimit = (allocationTolerance as BigDecimal) / 100
+def regressions = []
+def compared = 0
+
+new JsonSlurper().parse(results, 'UTF-8').each { result ->
+	def name = key(result)
+	def expected = baselineResults[name]
+	if (!expected) {
+		log.warn("No baseline for ${name}")
+		return
+	}
+	compared++
+
+	// Throughput is better when higher, all other modes measure time so are
+	// better when lower
+	def score = result.primaryMetric.score as BigDecimal
+	def expectedScore = expected.primaryMetric.score as BigDecimal
+	def unit = result.primaryMetric.scoreUnit
+	def change = expectedScore ? (score - expectedScore) / expectedScore : 0
+	if (result.mode == 'thrpt' ? change < -scoreLimit : change > scoreLimit) {
+		regressions << String.format('%s: %.3f %s against a baseline of %.3f %s (%+.1f%%)',
+			name, score, unit, expectedScore, unit, change * 100)
+	}
+
+	// Allow for a byte of noise, as benchmarks that don't allocate still report
+	// a fraction of one
+	def allocated = allocation(result) as BigDecimal
+	def expectedAllocated = allocation(expected) as BigDecimal
+	if (allocated != null && expectedAllocated != null &&
+		allocated > expectedAllocated * (1 + allocationLimit) && allocated - expectedAllocated >= 1) {
+		regressions << String.format('%s: %.1f B/op against a baseline of %.1f B/op',
+			name, allocated, expectedAllocated)
+	}
+}
+
+if (!compared) {
+	throw new IllegalStateException("None of the benchmark results have a baseline in ${baseline}, " +
+		"record a new one on the reference machine with -Djmh.updateBaseline=true")
+}
+if (regressions) {
+	regressions.each { regression ->
+		log.error(regression)
+	}
+	throw new IllegalStateException("${regressions.size()} benchmark regressions against ${baseline}, " +
+		"beyond a tolerance of ${tolerance}% for scores and ${allocationTolerance}% for allocations")
+}
+log.info("No benchmark regressions against ${baseline} in ${compared} benchmarks")
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.jmh;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import nz.net.ultraq.thymeleaf.LayoutDialect;
+import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.cache.NonCacheableCacheEntryValidity;
+import org.thymeleaf.context.EngineContext;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.engine.TemplateData;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresource.StringTemplateResource;
+
+/**
+ * Common state for the benchmarks: a template engine with the layout dialect,
+ * over a {@link TemplateCorpus} of a single layout and a content template of a
+ * parameterised size, those two templates already parsed, and a template
+ * context for the content template for benchmarks that work on the dialect's
+ * internals directly.
+ *
+ * @author zhanhb
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class AbstractTemplateBenchmark {
+
+    /**
+     * Return the index of the first opening element with the given name.
+     *
+     * @param model
+     * @param elementName
+     * @return Index of the element in the model.
+     */
+    protected static int indexOfElement(IModel model, String elementName) {
+        for (int i = 0, size = model.size(); i < size; i++) {
+            ITemplateEvent event = model.get(i);
+            if (event instanceof IOpenElementTag && elementName.equals(((IOpenElementTag) event).getElementCompleteName())) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No " + elementName + " element in the model");
+    }
+
+    /**
+     * Return the model of the first element with the given name.
+     *
+     * @param model
+     * @param elementName
+     * @return Copy of the element and its children.
+     */
+    protected static IModel elementModel(IModel model, String elementName) {
+        return IModelExtensions.getModel(model, indexOfElement(model, elementName));
+    }
+
+    private static TemplateModel parse(IEngineConfiguration configuration, String template, String content) {
+        TemplateData templateData = new TemplateData(template, Collections.<String>emptySet(),
+                new StringTemplateResource(content), TemplateMode.HTML, NonCacheableCacheEntryValidity.INSTANCE);
+        return configuration.getTemplateManager().parseString(templateData, content, 0, 0, TemplateMode.HTML, false);
+    }
+
+    /**
+     * Number of head resources and fragments in each template.
+     */
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    protected TemplateEngine templateEngine;
+    protected TemplateModel layoutTemplate;
+    protected TemplateModel contentTemplate;
+    protected ITemplateContext context;
+
+    /**
+     * Generate the templates and set up the template engine.
+     */
+    @Setup
+    public void setUpTemplates() {
+        Map<String, String> templates = new TemplateCorpus(1, size, size, 0, 0).generate();
+
+        templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(new MapTemplateResolver(templates));
+        templateEngine.addDialect(createLayoutDialect());
+
+        IEngineConfiguration configuration = templateEngine.getConfiguration();
+        layoutTemplate = parse(configuration, TemplateCorpus.layout(0), templates.get(TemplateCorpus.layout(0)));
+        contentTemplate = parse(configuration, TemplateCorpus.CONTENT, templates.get(TemplateCorpus.CONTENT));
+        context = new EngineContext(configuration, contentTemplate.getTemplateData(),
+                Collections.<String, Object>emptyMap(), Locale.ENGLISH, Collections.<String, Object>emptyMap());
+
+        setUp();
+    }
+
+    /**
+     * Create the layout dialect to add to the template engine.
+     *
+     * @return A layout dialect with the default options.
+     */
+    protected LayoutDialect createLayoutDialect() {
+        return new LayoutDialect();
+    }
+
+    /**
+     * Called once the templates have been set up, for benchmarks to prepare
+     * anything else they need.
+     */
+    protected void setUp() {
+    }
+
+}
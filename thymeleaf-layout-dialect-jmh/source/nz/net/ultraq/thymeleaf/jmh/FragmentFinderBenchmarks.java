@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.jmh;
+
+import java.util.List;
+import java.util.Map;
+import nz.net.ultraq.thymeleaf.fragments.FragmentFinder;
+import nz.net.ultraq.thymeleaf.fragments.FragmentUsage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.thymeleaf.model.IModel;
+
+/**
+ * Benchmarks for gathering the fragments of a content template, as done for
+ * every decoration and inclusion.
+ *
+ * @author zhanhb
+ */
+public class FragmentFinderBenchmarks extends AbstractTemplateBenchmark {
+
+    private FragmentFinder fragmentFinder;
+    private FragmentUsage fragmentUsage;
+    private IModel contentModel;
+
+    @Override
+    protected void setUp() {
+        fragmentFinder = new FragmentFinder("layout");
+        fragmentUsage = FragmentUsage.forTemplate(layoutTemplate, "layout", "th");
+
+        // Processors search models they're free to modify, not template models
+        contentModel = contentTemplate.cloneModel();
+    }
+
+    @Benchmark
+    public Map<String, List<IModel>> findFragments() {
+        return fragmentFinder.findFragments(contentModel);
+    }
+
+    @Benchmark
+    public Map<String, List<IModel>> findUsedFragments() {
+        return fragmentFinder.findFragments(contentModel, fragmentUsage);
+    }
+
+}
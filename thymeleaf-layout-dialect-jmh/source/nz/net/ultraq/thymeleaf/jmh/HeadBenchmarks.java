@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import nz.net.ultraq.thymeleaf.decorators.SortingStrategy;
+import nz.net.ultraq.thymeleaf.decorators.html.HtmlHeadDecorator;
+import nz.net.ultraq.thymeleaf.models.extensions.ChildModelIterator;
+import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+import org.thymeleaf.model.IModel;
+
+/**
+ * Benchmarks for each of the built-in {@code <head>} sorting strategies, both
+ * on their own and as used by the {@code <head>} decorator.
+ *
+ * @author zhanhb
+ */
+public class HeadBenchmarks extends AbstractTemplateBenchmark {
+
+    @Param({
+        "AppendingStrategy",
+        "AppendingRespectLayoutTitleStrategy",
+        "GroupingStrategy",
+        "GroupingRespectLayoutTitleStrategy",
+        "DeduplicatingStrategy"
+    })
+    public String strategy;
+
+    private SortingStrategy sortingStrategy;
+    private IModel layoutHead;
+    private IModel contentHead;
+    private List<IModel> contentHeadChildren;
+
+    @Override
+    protected void setUp() {
+        try {
+            sortingStrategy = (SortingStrategy) Class.forName("nz.net.ultraq.thymeleaf.decorators.strategies." + strategy)
+                    .newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalArgumentException("Unknown sorting strategy " + strategy, ex);
+        }
+        layoutHead = elementModel(layoutTemplate, "head");
+        contentHead = elementModel(contentTemplate, "head");
+        contentHeadChildren = new ArrayList<>();
+        ChildModelIterator it = IModelExtensions.childModelIterator(contentHead);
+        while (it.hasNext()) {
+            contentHeadChildren.add(it.next().cloneModel());
+        }
+    }
+
+    /**
+     * Where each of the content {@code <head>} elements would go in the layout
+     * {@code <head>}, without inserting any of them.
+     *
+     * @param blackhole
+     */
+    @Benchmark
+    public void findPositionForModel(Blackhole blackhole) {
+        for (IModel child : contentHeadChildren) {
+            blackhole.consume(sortingStrategy.findPositionForModel(layoutHead, child));
+        }
+    }
+
+    @Benchmark
+    public IModel decorateHead() {
+        return new HtmlHeadDecorator(context, sortingStrategy).decorate(layoutHead, contentHead);
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.jmh;
+
+import java.util.Map;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.templateresolver.AbstractConfigurableTemplateResolver;
+import org.thymeleaf.templateresource.ITemplateResource;
+import org.thymeleaf.templateresource.StringTemplateResource;
+
+/**
+ * Template resolver over templates held in memory, so that benchmarks can
+ * generate templates of any size.
+ *
+ * @author zhanhb
+ */
+class MapTemplateResolver extends AbstractConfigurableTemplateResolver {
+
+    private final Map<String, String> templates;
+
+    /**
+     * Constructor, resolve templates from the given map of template names to
+     * their contents.
+     *
+     * @param templates
+     */
+    MapTemplateResolver(Map<String, String> templates) {
+        this.templates = templates;
+    }
+
+    @Override
+    protected ITemplateResource computeTemplateResource(IEngineConfiguration configuration, String ownerTemplate,
+            String template, String resourceName, String characterEncoding, Map<String, Object> templateResolutionAttributes) {
+        String content = templates.get(resourceName);
+        if (content == null) {
+            throw new IllegalArgumentException("No benchmark template named " + resourceName);
+        }
+        return new StringTemplateResource(content);
+    }
+
+}
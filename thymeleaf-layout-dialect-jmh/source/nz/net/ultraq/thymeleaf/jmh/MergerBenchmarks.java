@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.jmh;
+
+import nz.net.ultraq.thymeleaf.models.AttributeMerger;
+import nz.net.ultraq.thymeleaf.models.ElementMerger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelFactory;
+
+/**
+ * Benchmarks for merging the root elements of content and layout templates,
+ * and for merging content fragments into layout fragments.
+ *
+ * @author zhanhb
+ */
+public class MergerBenchmarks extends AbstractTemplateBenchmark {
+
+    private IModel layoutRoot;
+    private IModel contentRoot;
+    private IModel layoutSection;
+    private IModel contentSection;
+
+    @Override
+    protected void setUp() {
+        IModelFactory modelFactory = context.getModelFactory();
+        layoutRoot = modelFactory.createModel(layoutTemplate.get(indexOfElement(layoutTemplate, "html")));
+        contentRoot = modelFactory.createModel(contentTemplate.get(indexOfElement(contentTemplate, "html")));
+        layoutSection = elementModel(layoutTemplate, "section");
+        contentSection = elementModel(contentTemplate, "section");
+    }
+
+    @Benchmark
+    public IModel attributeMerger() {
+        return new AttributeMerger(context).merge(layoutRoot, contentRoot);
+    }
+
+    @Benchmark
+    public IModel elementMerger() {
+        return new ElementMerger(context).merge(layoutSection, contentSection);
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.jmh;
+
+import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.thymeleaf.model.IModel;
+
+/**
+ * Benchmarks for the model traversal extensions that most of the dialect is
+ * built on.  Each is run over both the parsed template, which Thymeleaf never
+ * modifies, and a mutable copy of it like the ones the dialect works on during
+ * decoration.
+ *
+ * @author zhanhb
+ */
+public class ModelBenchmarks extends AbstractTemplateBenchmark {
+
+    private IModel contentModel;
+    private int htmlIndex;
+    private int headIndex;
+
+    @Override
+    protected void setUp() {
+        contentModel = contentTemplate.cloneModel();
+        htmlIndex = indexOfElement(contentTemplate, "html");
+        headIndex = indexOfElement(contentTemplate, "head");
+    }
+
+    @Benchmark
+    public int sizeOfModelAt() {
+        return IModelExtensions.sizeOfModelAt(contentTemplate, htmlIndex);
+    }
+
+    @Benchmark
+    public int sizeOfModelAtMutable() {
+        return IModelExtensions.sizeOfModelAt(contentModel, htmlIndex);
+    }
+
+    @Benchmark
+    public IModel getModel() {
+        return IModelExtensions.getModel(contentTemplate, headIndex);
+    }
+
+    @Benchmark
+    public IModel getModelMutable() {
+        return IModelExtensions.getModel(contentModel, headIndex);
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.jmh;
+
+import java.util.concurrent.TimeUnit;
+import nz.net.ultraq.thymeleaf.LayoutDialect;
+import nz.net.ultraq.thymeleaf.decorators.SortingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+/**
+ * Benchmark for full runs of the template engine over a {@link TemplateCorpus},
+ * to show how processing time grows with each dimension of the corpus. The
+ * defaults keep to two values for each dimension; pass others with {@code -p}
+ * to look further along any one of them, eg: {@code -p depth=1,2,4,8,16}.
+ *
+ * @author zhanhb
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScalingBenchmarks {
+
+    @Param({"1", "4"})
+    public int depth;
+
+    @Param({"10", "100"})
+    public int headSize;
+
+    @Param({"10", "100"})
+    public int fragments;
+
+    @Param({"0", "10"})
+    public int collected;
+
+    @Param({"0", "10"})
+    public int fanOut;
+
+    @Param({"AppendingStrategy", "GroupingStrategy"})
+    public String strategy;
+
+    private TemplateEngine templateEngine;
+
+    /**
+     * Generate the corpus and set up the template engine.
+     */
+    @Setup
+    public void setUp() {
+        SortingStrategy sortingStrategy;
+        try {
+            sortingStrategy = (SortingStrategy) Class.forName("nz.net.ultraq.thymeleaf.decorators.strategies." + strategy)
+                    .newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalArgumentException("Unknown sorting strategy " + strategy, ex);
+        }
+        templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(new MapTemplateResolver(
+                new TemplateCorpus(depth, headSize, fragments, collected, fanOut).generate()));
+        templateEngine.addDialect(new LayoutDialect(sortingStrategy));
+    }
+
+    @Benchmark
+    public String process() {
+        return templateEngine.process(TemplateCorpus.CONTENT, new Context());
+    }
+
+}
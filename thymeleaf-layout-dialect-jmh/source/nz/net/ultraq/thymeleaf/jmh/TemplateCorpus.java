@@ -0,0 +1,253 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.jmh;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generates a set of layout, content and fragment templates whose shape can be
+ * scaled along each of the things the layout dialect has to work through:
+ * <ul>
+ * <li>{@code depth}: the number of layouts in the hierarchy above the content
+ * template, each decorating the one before it</li>
+ * <li>{@code headSize}: the number of resources in the {@code <head>} of every
+ * template</li>
+ * <li>{@code fragments}: the number of {@code layout:fragment} elements every
+ * template declares, each one replacing the same fragment of its layout</li>
+ * <li>{@code collected}: the number of {@code layout:define} elements every
+ * template declares, gathered by a {@code layout:collect} in the root
+ * layout</li>
+ * <li>{@code fanOut}: the number of iterations of a {@code th:each} in the
+ * content template, each one inserting a fragments template and passing it a
+ * fragment of its own</li>
+ * </ul>
+ * All templates are named under {@code corpus/} and refer to each other by
+ * those names, without a suffix. {@link #generate} returns them for use in
+ * memory, while running this class writes them out as {@code .html} files, eg:
+ * {@code java -cp benchmarks.jar nz.net.ultraq.thymeleaf.jmh.TemplateCorpus
+ * target/templates 4 100 10 10 10} for templates that the benchmark web
+ * application can then be pointed at.
+ *
+ * @author zhanhb
+ */
+public final class TemplateCorpus {
+
+    public static final String CONTENT = "corpus/Content";
+    public static final String FRAGMENTS = "corpus/Fragments";
+
+    private static final String NAMESPACES
+            = " xmlns:th=\"http://www.thymeleaf.org\" xmlns:layout=\"http://www.ultraq.net.nz/thymeleaf/layout\"";
+
+    /**
+     * Return the name of the layout at the given level of the hierarchy, the
+     * root layout being level 0.
+     *
+     * @param level
+     * @return The layout template name.
+     */
+    public static String layout(int level) {
+        return "corpus/Layout-" + level;
+    }
+
+    /**
+     * Write a corpus to a directory.
+     *
+     * @param args The directory, followed by any of the depth, head size,
+     * fragments, collected and fan-out, which default to 1, 10, 10, 0 and 0.
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 6) {
+            System.err.println("Usage: TemplateCorpus <directory> [depth] [headSize] [fragments] [collected] [fanOut]");
+            System.exit(1);
+        }
+        int[] shape = {1, 10, 10, 0, 0};
+        for (int i = 1; i < args.length; i++) {
+            shape[i - 1] = Integer.parseInt(args[i]);
+        }
+        TemplateCorpus corpus = new TemplateCorpus(shape[0], shape[1], shape[2], shape[3], shape[4]);
+        File directory = new File(args[0]);
+        corpus.writeTo(directory);
+        System.out.println("Wrote " + corpus + " to " + directory.getAbsolutePath());
+    }
+
+    private final int depth;
+    private final int headSize;
+    private final int fragments;
+    private final int collected;
+    private final int fanOut;
+
+    /**
+     * Constructor, set the shape of the corpus.
+     *
+     * @param depth At least 1.
+     * @param headSize
+     * @param fragments
+     * @param collected
+     * @param fanOut
+     */
+    public TemplateCorpus(int depth, int headSize, int fragments, int collected, int fanOut) {
+        if (depth < 1 || headSize < 0 || fragments < 0 || collected < 0 || fanOut < 0) {
+            throw new IllegalArgumentException("Depth must be at least 1 and all other sizes not negative");
+        }
+        this.depth = depth;
+        this.headSize = headSize;
+        this.fragments = fragments;
+        this.collected = collected;
+        this.fanOut = fanOut;
+    }
+
+    /**
+     * Generate all the templates of this corpus.
+     *
+     * @return Map of template names to their contents, starting with the
+     * content template.
+     */
+    public Map<String, String> generate() {
+        Map<String, String> templates = new LinkedHashMap<>(depth + 3);
+        templates.put(CONTENT, content());
+        for (int level = depth - 1; level >= 0; level--) {
+            templates.put(layout(level), layoutAt(level));
+        }
+        templates.put(FRAGMENTS, fragments());
+        return templates;
+    }
+
+    /**
+     * Write all the templates of this corpus to the given directory, as
+     * {@code .html} files under their template names.
+     *
+     * @param directory
+     * @throws IOException
+     */
+    public void writeTo(File directory) throws IOException {
+        for (Map.Entry<String, String> template : generate().entrySet()) {
+            File file = new File(directory, template.getKey() + ".html");
+            File parent = file.getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Unable to create directory " + parent);
+            }
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+                writer.write(template.getValue());
+            }
+        }
+    }
+
+    private String layoutAt(int level) {
+        StringBuilder html = new StringBuilder(400 + (headSize + fragments + collected) * 100);
+        html.append("<!DOCTYPE html>\n")
+                .append("<html").append(NAMESPACES);
+        if (level > 0) {
+            html.append(" layout:decorate=\"~{").append(layout(level - 1)).append("}\"");
+        }
+        html.append(">\n")
+                .append("<head>\n");
+        if (level == 0) {
+            html.append("\t<title layout:title-pattern=\"$LAYOUT_TITLE - $CONTENT_TITLE\">Layout</title>\n")
+                    .append("\t<meta charset=\"UTF-8\"/>\n");
+        }
+        for (int i = 0; i < headSize; i++) {
+            html.append("\t<link rel=\"stylesheet\" href=\"layout-").append(level).append('-').append(i).append(".css\"/>\n")
+                    .append("\t<script src=\"layout-").append(level).append('-').append(i).append(".js\"></script>\n");
+        }
+        html.append("</head>\n")
+                .append("<body>\n");
+        if (level == 0) {
+            html.append("\t<header>Header</header>\n");
+        }
+        for (int i = 0; i < fragments; i++) {
+            html.append("\t<section layout:fragment=\"section-").append(i).append("\">\n")
+                    .append("\t\t<p>Layout ").append(level).append(" section ").append(i).append("</p>\n")
+                    .append("\t</section>\n");
+        }
+        appendDefinitions(html, "Layout " + level);
+        if (level == 0) {
+            if (collected > 0) {
+                html.append("\t<ul>\n")
+                        .append("\t\t<li layout:collect=\"item\"></li>\n")
+                        .append("\t</ul>\n");
+            }
+            html.append("\t<footer>Footer</footer>\n");
+        }
+        html.append("</body>\n")
+                .append("</html>\n");
+        return html.toString();
+    }
+
+    private String content() {
+        StringBuilder html = new StringBuilder(400 + (headSize + fragments + collected) * 150);
+        html.append("<!DOCTYPE html>\n")
+                .append("<html").append(NAMESPACES)
+                .append(" layout:decorate=\"~{").append(layout(depth - 1)).append("}\">\n")
+                .append("<head>\n")
+                .append("\t<title>Content</title>\n");
+        for (int i = 0; i < headSize; i++) {
+            html.append("\t<meta name=\"content-").append(i).append("\" content=\"Content ").append(i).append("\"/>\n")
+                    .append("\t<link rel=\"stylesheet\" href=\"content-").append(i).append(".css\"/>\n")
+                    .append("\t<script src=\"content-").append(i).append(".js\"></script>\n");
+        }
+        html.append("</head>\n")
+                .append("<body>\n");
+        for (int i = 0; i < fragments; i++) {
+            html.append("\t<section th:with=\"index=").append(i).append("\" layout:fragment=\"section-").append(i).append("\">\n")
+                    .append("\t\t<p th:text=\"'Content section ' + ${index}\">Content section</p>\n")
+                    .append("\t</section>\n");
+        }
+        appendDefinitions(html, "Content");
+        if (fanOut > 0) {
+            html.append("\t<div th:each=\"entry : ${#numbers.sequence(1, ").append(fanOut).append(")}\">\n")
+                    .append("\t\t<div layout:insert=\"~{").append(FRAGMENTS).append(" :: entry}\">\n")
+                    .append("\t\t\t<p layout:fragment=\"entry-content\" th:text=\"'Entry ' + ${entry}\">Entry</p>\n")
+                    .append("\t\t</div>\n")
+                    .append("\t</div>\n");
+        }
+        html.append("</body>\n")
+                .append("</html>\n");
+        return html.toString();
+    }
+
+    private String fragments() {
+        return "<!DOCTYPE html>\n"
+                + "<html" + NAMESPACES + ">\n"
+                + "<body>\n"
+                + "\t<article layout:fragment=\"entry\">\n"
+                + "\t\t<h2>Entry</h2>\n"
+                + "\t\t<div layout:fragment=\"entry-content\">Default entry content</div>\n"
+                + "\t</article>\n"
+                + "</body>\n"
+                + "</html>\n";
+    }
+
+    private void appendDefinitions(StringBuilder html, String owner) {
+        for (int i = 0; i < collected; i++) {
+            html.append("\t<li layout:define=\"item\">").append(owner).append(" item ").append(i).append("</li>\n");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + depth + ", head size " + headSize + ", fragments " + fragments
+                + ", collected " + collected + ", fan-out " + fanOut;
+    }
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.thymeleaf.context.Context;
+
+/**
+ * Benchmark for a full run of the template engine over a content template
+ * decorating a layout, with the engine's template cache in use as it would be
+ * in production.
+ *
+ * @author zhanhb
+ */
+public class TemplateEngineBenchmarks extends AbstractTemplateBenchmark {
+
+    @Benchmark
+    public String process() {
+        return templateEngine.process(TemplateCorpus.CONTENT, new Context());
+    }
+
+}
@@ -19,6 +19,7 @@ import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.Set;
 import nz.net.ultraq.thymeleaf.decorators.DecorateProcessor;
+import nz.net.ultraq.thymeleaf.decorators.DecorationOptions;
 import nz.net.ultraq.thymeleaf.decorators.SortingStrategy;
 import nz.net.ultraq.thymeleaf.decorators.TitlePatternProcessor;
 import nz.net.ultraq.thymeleaf.fragments.CollectFragmentProcessor;
@@ -43,8 +44,7 @@ public class LayoutDialect extends AbstractProcessorDialect {
     public static final String DIALECT_PREFIX = "layout";
     public static final int DIALECT_PRECEDENCE = 10;
 
-    private final boolean autoHeadMerging;
-    private final SortingStrategy sortingStrategy;
+    private final DecorationOptions options;
 
     /**
      * Constructor, configure the layout dialect.
@@ -54,9 +54,17 @@ public class LayoutDialect extends AbstractProcessorDialect {
      * the automatic merging of an HTML {@code <head>} section.
      */
     public LayoutDialect(SortingStrategy sortingStrategy, boolean autoHeadMerging) {
+        this(new DecorationOptions(sortingStrategy).withAutoHeadMerging(autoHeadMerging));
+    }
+
+    /**
+     * Constructor, configure the layout dialect.
+     *
+     * @param options
+     */
+    public LayoutDialect(DecorationOptions options) {
         super(DIALECT_NAME, DIALECT_PREFIX, DIALECT_PRECEDENCE);
-        this.sortingStrategy = sortingStrategy;
-        this.autoHeadMerging = autoHeadMerging;
+        this.options = options;
     }
 
     /**
@@ -88,8 +96,8 @@ public class LayoutDialect extends AbstractProcessorDialect {
         return new LinkedHashSet<>(Arrays.asList(
                 // Processors available in the HTML template mode
                 new StandardXmlNsTagProcessor(TemplateMode.HTML, dialectPrefix),
-                new DecorateProcessor(TemplateMode.HTML, dialectPrefix, sortingStrategy, autoHeadMerging),
-                new nz.net.ultraq.thymeleaf.decorators.DecoratorProcessor(TemplateMode.HTML, dialectPrefix, sortingStrategy, autoHeadMerging),
+                new DecorateProcessor(TemplateMode.HTML, dialectPrefix, options),
+                new nz.net.ultraq.thymeleaf.decorators.DecoratorProcessor(TemplateMode.HTML, dialectPrefix, options),
                 new nz.net.ultraq.thymeleaf.includes.IncludeProcessor(TemplateMode.HTML, dialectPrefix),
                 new InsertProcessor(TemplateMode.HTML, dialectPrefix),
                 new ReplaceProcessor(TemplateMode.HTML, dialectPrefix),
@@ -98,8 +106,8 @@ public class LayoutDialect extends AbstractProcessorDialect {
                 new TitlePatternProcessor(TemplateMode.HTML, dialectPrefix),
                 // Processors available in the XML template mode
                 new StandardXmlNsTagProcessor(TemplateMode.XML, dialectPrefix),
-                new DecorateProcessor(TemplateMode.XML, dialectPrefix, sortingStrategy, autoHeadMerging),
-                new nz.net.ultraq.thymeleaf.decorators.DecoratorProcessor(TemplateMode.XML, dialectPrefix, sortingStrategy, autoHeadMerging),
+                new DecorateProcessor(TemplateMode.XML, dialectPrefix, options),
+                new nz.net.ultraq.thymeleaf.decorators.DecoratorProcessor(TemplateMode.XML, dialectPrefix, options),
                 new nz.net.ultraq.thymeleaf.includes.IncludeProcessor(TemplateMode.XML, dialectPrefix),
                 new InsertProcessor(TemplateMode.XML, dialectPrefix),
                 new ReplaceProcessor(TemplateMode.XML, dialectPrefix),
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.context;
+
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import nz.net.ultraq.thymeleaf.decorators.TitlePatternProcessor;
+import nz.net.ultraq.thymeleaf.fragments.extensions.FragmentExtensions;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.context.IEngineContext;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.processor.element.IElementModelStructureHandler;
+
+/**
+ * The state the layout dialect keeps while rendering a template: the layout
+ * fragments available to the current element, and the content and layout
+ * title parts for the {@code layout:title-pattern} processor.
+ * <p>
+ * The state lives in a single context variable, so that reading any part of
+ * it is one variable lookup followed by plain field access. States can't be
+ * modified; changing a part creates a new state with the other parts carried
+ * over, which is then set at the same scope as the part used to be, so leaving
+ * an element restores whatever the state was before it.
+ * <p>
+ * For compatibility with code that still reads them, the parts are also set
+ * under their old, deprecated variable names whenever a state is set. This will
+ * be removed along with those names in a future version.
+ *
+ * @author zhanhb
+ */
+public final class LayoutRenderState {
+
+    /**
+     * Name of the context variable the state is kept in.
+     */
+    public static final String VARIABLE_NAME = "LayoutDialect::RenderState";
+
+    private static final LayoutRenderState EMPTY = new LayoutRenderState(null, null, null);
+
+    /**
+     * Return the state visible to the current element of the given context.
+     *
+     * @param context
+     * @return The current state, or an empty state if none has been set yet.
+     */
+    @Nonnull
+    public static LayoutRenderState of(@Nonnull IContext context) {
+        Object state = context.getVariable(VARIABLE_NAME);
+        return state instanceof LayoutRenderState ? (LayoutRenderState) state : EMPTY;
+    }
+
+    private final Map<String, List<IModel>> fragmentCollection;
+    private final IModel contentTitle;
+    private final IModel layoutTitle;
+
+    /**
+     * Constructor, create a state with the given parts.
+     *
+     * @param fragmentCollection
+     * @param contentTitle
+     * @param layoutTitle
+     */
+    public LayoutRenderState(@Nullable Map<String, List<IModel>> fragmentCollection,
+            @Nullable IModel contentTitle, @Nullable IModel layoutTitle) {
+        this.fragmentCollection = fragmentCollection;
+        this.contentTitle = contentTitle;
+        this.layoutTitle = layoutTitle;
+    }
+
+    /**
+     * Set this state on the context, at the level of the element currently
+     * being processed.
+     *
+     * @param context
+     */
+    @SuppressWarnings("deprecation")
+    public void setOn(@Nonnull IContext context) {
+        IEngineContext engineContext = (IEngineContext) context;
+        engineContext.setVariable(VARIABLE_NAME, this);
+        engineContext.setVariable(FragmentExtensions.FRAGMENT_COLLECTION_KEY, fragmentCollection);
+        engineContext.setVariable(TitlePatternProcessor.CONTENT_TITLE_KEY, contentTitle);
+        engineContext.setVariable(TitlePatternProcessor.LAYOUT_TITLE_KEY, layoutTitle);
+    }
+
+    /**
+     * Set this state as a local variable of the element currently being
+     * processed, so that it applies to the element's body.
+     *
+     * @param structureHandler
+     */
+    @SuppressWarnings("deprecation")
+    public void setLocal(@Nonnull IElementModelStructureHandler structureHandler) {
+        structureHandler.setLocalVariable(VARIABLE_NAME, this);
+        structureHandler.setLocalVariable(FragmentExtensions.FRAGMENT_COLLECTION_KEY, fragmentCollection);
+        structureHandler.setLocalVariable(TitlePatternProcessor.CONTENT_TITLE_KEY, contentTitle);
+        structureHandler.setLocalVariable(TitlePatternProcessor.LAYOUT_TITLE_KEY, layoutTitle);
+    }
+
+    /**
+     * Return a copy of this state with the given fragment collection.
+     *
+     * @param fragmentCollection
+     * @return New state with the fragment collection replaced.
+     */
+    public LayoutRenderState withFragmentCollection(@Nullable Map<String, List<IModel>> fragmentCollection) {
+        return new LayoutRenderState(fragmentCollection, contentTitle, layoutTitle);
+    }
+
+    /**
+     * Return a copy of this state with the given content title.
+     *
+     * @param contentTitle
+     * @return New state with the content title replaced.
+     */
+    public LayoutRenderState withContentTitle(@Nullable IModel contentTitle) {
+        return new LayoutRenderState(fragmentCollection, contentTitle, layoutTitle);
+    }
+
+    /**
+     * Return a copy of this state with the given layout title.
+     *
+     * @param layoutTitle
+     * @return New state with the layout title replaced.
+     */
+    public LayoutRenderState withLayoutTitle(@Nullable IModel layoutTitle) {
+        return new LayoutRenderState(fragmentCollection, contentTitle, layoutTitle);
+    }
+
+    @Nullable
+    public Map<String, List<IModel>> getFragmentCollection() {
+        return fragmentCollection;
+    }
+
+    @Nullable
+    public IModel getContentTitle() {
+        return contentTitle;
+    }
+
+    @Nullable
+    public IModel getLayoutTitle() {
+        return layoutTitle;
+    }
+
+}
@@ -15,9 +15,13 @@
  */
 package nz.net.ultraq.thymeleaf.context.extensions;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.annotation.Nonnull;
+import nz.net.ultraq.thymeleaf.internal.IdentityCache;
 import nz.net.ultraq.thymeleaf.internal.Supplier;
 import org.thymeleaf.DialectConfiguration;
+import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.context.IContext;
 import org.thymeleaf.context.IEngineContext;
 import org.thymeleaf.context.IExpressionContext;
@@ -30,7 +34,14 @@ import org.thymeleaf.dialect.IProcessorDialect;
  */
 public class IContextExtensions {
 
-    private static final String DIALECT_PREFIX_PREFIX = "DialectPrefix::";
+    /**
+     * Stands in for dialects without a prefix, as the concurrent maps can't
+     * hold {@code null}.
+     */
+    private static final Object NO_PREFIX = new Object();
+
+    private static final IdentityCache<IEngineConfiguration, ConcurrentMap<Class<?>, Object>> DIALECT_PREFIXES
+            = new IdentityCache<>();
 
     /**
      * Enables use of the {@code value = context[key]} syntax over the context
@@ -69,6 +80,10 @@ public class IContextExtensions {
     /**
      * Returns the configured prefix for the given dialect. If the dialect
      * prefix has not been configured.
+     * <p>
+     * Prefixes can't change once an engine has been configured, so they're
+     * worked out once for each configuration and dialect class rather than for
+     * each context.
      *
      * @param self
      * @param dialectClass
@@ -76,17 +91,25 @@ public class IContextExtensions {
      * dialect being queried hasn't been configured.
      */
     public static String getPrefixForDialect(@Nonnull IContext self, Class<? extends IProcessorDialect> dialectClass) {
-        return getOrCreate(self, DIALECT_PREFIX_PREFIX + dialectClass.getName(), () -> {
-            for (DialectConfiguration dialectConfig : ((IExpressionContext) self).getConfiguration().getDialectConfigurations()) {
+        IEngineConfiguration configuration = ((IExpressionContext) self).getConfiguration();
+        ConcurrentMap<Class<?>, Object> prefixes = DIALECT_PREFIXES.getOrCreate(configuration,
+                () -> new ConcurrentHashMap<Class<?>, Object>(4));
+        Object prefix = prefixes.get(dialectClass);
+        if (prefix == null) {
+            prefix = NO_PREFIX;
+            for (DialectConfiguration dialectConfig : configuration.getDialectConfigurations()) {
                 if (dialectClass.isInstance(dialectConfig.getDialect())) {
-                    if (dialectConfig.isPrefixSpecified()) {
-                        return dialectConfig.getPrefix();
-                    }
-                    return ((IProcessorDialect) dialectConfig.getDialect()).getPrefix();
+                    prefix = dialectConfig.isPrefixSpecified() ? dialectConfig.getPrefix()
+                            : ((IProcessorDialect) dialectConfig.getDialect()).getPrefix();
+                    break;
                 }
             }
-            return null;
-        });
+            if (prefix == null) {
+                prefix = NO_PREFIX;
+            }
+            prefixes.putIfAbsent(dialectClass, prefix);
+        }
+        return prefix != NO_PREFIX ? (String) prefix : null;
     }
 
     /**
@@ -18,12 +18,16 @@ package nz.net.ultraq.thymeleaf.decorators;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import javax.annotation.Nullable;
 import nz.net.ultraq.thymeleaf.decorators.html.HtmlDocumentDecorator;
 import nz.net.ultraq.thymeleaf.decorators.xml.XmlDocumentDecorator;
 import nz.net.ultraq.thymeleaf.expressions.ExpressionProcessor;
 import nz.net.ultraq.thymeleaf.fragments.FragmentFinder;
+import nz.net.ultraq.thymeleaf.fragments.FragmentUsage;
 import nz.net.ultraq.thymeleaf.fragments.extensions.FragmentExtensions;
+import nz.net.ultraq.thymeleaf.internal.DecorationTimer;
 import nz.net.ultraq.thymeleaf.internal.IContextDelegate;
+import nz.net.ultraq.thymeleaf.models.DocumentSkeleton;
 import nz.net.ultraq.thymeleaf.models.TemplateModelFinder;
 import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
 import org.thymeleaf.context.IContext;
@@ -58,17 +62,17 @@ public class DecorateProcessor extends AbstractAttributeModelProcessor {
      *
      * @param element1
      * @param element2
-     * @param context
+     * @param standardDialectPrefix
      * @return {@code true} if the elements share the same name and all
      * attributes, with the exception of XML namespace declarations and
      * Thymeleaf's {@code th:with} attribute processor.
      */
     private static boolean rootElementsEqual(IProcessableElementTag element1,
-            IProcessableElementTag element2, IContext context) {
+            IProcessableElementTag element2, @Nullable String standardDialectPrefix) {
 
         if (element1 != null && element2 != null
                 && Objects.equals(element1.getElementDefinition(), element2.getElementDefinition())) {
-            String maybe = IContextDelegate.getPrefixForDialect(context, StandardDialect.class) + ":with";
+            String maybe = standardDialectPrefix + ":with";
             Map<String, String> attributeMap = element2.getAttributeMap();
             for (Map.Entry<String, String> entry : element1.getAttributeMap().entrySet()) {
                 String key = entry.getKey();
@@ -90,6 +94,10 @@ public class DecorateProcessor extends AbstractAttributeModelProcessor {
 
     private final boolean autoHeadMerging;
     private final SortingStrategy sortingStrategy;
+    private final DecorationCache decorationCache;
+    private final ResourceHintCache resourceHintCache = new ResourceHintCache();
+    private final LayoutDialectListener listener;
+    private volatile String standardDialectPrefix;
 
     /**
      * Constructor, configure this processor to work on the 'decorate' attribute
@@ -102,7 +110,19 @@ public class DecorateProcessor extends AbstractAttributeModelProcessor {
      */
     public DecorateProcessor(TemplateMode templateMode, String dialectPrefix, SortingStrategy sortingStrategy,
             boolean autoHeadMerging) {
-        this(templateMode, dialectPrefix, sortingStrategy, autoHeadMerging, PROCESSOR_NAME);
+        this(templateMode, dialectPrefix, new DecorationOptions(sortingStrategy).withAutoHeadMerging(autoHeadMerging));
+    }
+
+    /**
+     * Constructor, configure this processor to work on the 'decorate' attribute
+     * and to decorate with the given options.
+     *
+     * @param templateMode
+     * @param dialectPrefix
+     * @param options
+     */
+    public DecorateProcessor(TemplateMode templateMode, String dialectPrefix, DecorationOptions options) {
+        this(templateMode, dialectPrefix, options, PROCESSOR_NAME);
     }
 
     /**
@@ -117,9 +137,44 @@ public class DecorateProcessor extends AbstractAttributeModelProcessor {
      */
     protected DecorateProcessor(TemplateMode templateMode, String dialectPrefix, SortingStrategy sortingStrategy,
             boolean autoHeadMerging, String attributeName) {
+        this(templateMode, dialectPrefix, new DecorationOptions(sortingStrategy).withAutoHeadMerging(autoHeadMerging),
+                attributeName);
+    }
+
+    /**
+     * Constructor, configurable processor name and decoration options.
+     *
+     * @param templateMode
+     * @param dialectPrefix
+     * @param options
+     * @param attributeName
+     */
+    protected DecorateProcessor(TemplateMode templateMode, String dialectPrefix, DecorationOptions options,
+            String attributeName) {
         super(templateMode, dialectPrefix, null, false, attributeName, true, PROCESSOR_PRECEDENCE, false);
-        this.sortingStrategy = sortingStrategy;
-        this.autoHeadMerging = autoHeadMerging;
+        this.sortingStrategy = options.getSortingStrategy();
+        this.autoHeadMerging = options.isAutoHeadMerging();
+        this.decorationCache = options.isCacheDecorations() ? new DecorationCache() : null;
+        this.listener = options.getListener();
+    }
+
+    /**
+     * Return the prefix of Thymeleaf's standard dialect. Processors are created
+     * for each engine configuration, so the prefix only has to be looked up the
+     * first time.
+     *
+     * @param context
+     * @return The standard dialect prefix, or {@code null} if the standard
+     * dialect isn't in use.
+     */
+    @Nullable
+    private String getStandardDialectPrefix(IContext context) {
+        String prefix = standardDialectPrefix;
+        if (prefix == null) {
+            prefix = IContextDelegate.getPrefixForDialect(context, StandardDialect.class);
+            standardDialectPrefix = prefix;
+        }
+        return prefix;
     }
 
     /**
@@ -137,15 +192,16 @@ public class DecorateProcessor extends AbstractAttributeModelProcessor {
             String attributeValue, IElementModelStructureHandler structureHandler) {
 
         TemplateModelFinder templateModelFinder = new TemplateModelFinder(context);
+        DecorationTimer timer = listener != null ? new DecorationTimer(listener, context.getTemplateData().getTemplate()) : null;
 
-        // Load the entirety of this template so we can access items outside of the root element
-        String contentTemplateName = context.getTemplateData().getTemplate();
-        IModel contentTemplate = templateModelFinder.findTemplate(contentTemplateName).cloneModel();
+        // Get the parts of this template outside of the root element
+        DocumentSkeleton contentSkeleton = DocumentSkeleton.forTemplate(context);
 
         // Check that the root element is the same as the one currently being processed
-        IProcessableElementTag contentRootEvent = (IProcessableElementTag) IModelExtensions.find(contentTemplate, event -> event instanceof IProcessableElementTag);
+        IProcessableElementTag contentRootEvent = contentSkeleton.getRootElement();
         IProcessableElementTag rootElement = (IProcessableElementTag) IModelExtensions.first(model);
-        if (!rootElementsEqual(contentRootEvent, rootElement, context)) {
+        String standardDialectPrefix = getStandardDialectPrefix(context);
+        if (!rootElementsEqual(contentRootEvent, rootElement, standardDialectPrefix)) {
             throw new IllegalArgumentException("layout:decorate/data-layout-decorate must appear in the root element of your template");
         }
 
@@ -154,35 +210,73 @@ public class DecorateProcessor extends AbstractAttributeModelProcessor {
             rootElement = context.getModelFactory().removeAttribute(rootElement, attributeName);
             model.replace(0, rootElement);
         }
-        IModelExtensions.replaceModel(contentTemplate, IModelExtensions.findIndexOf(contentTemplate, event -> event instanceof IProcessableElementTag), model);
 
         // Locate the template to decorate
+        long startTime = timer != null ? timer.begin(DecorationPhase.LAYOUT_LOOKUP) : 0;
         FragmentExpression decorateTemplateExpression = new ExpressionProcessor(context).parseFragmentExpression(attributeValue);
         TemplateModel decorateTemplate = templateModelFinder.findTemplate(decorateTemplateExpression);
         TemplateData decorateTemplateData = decorateTemplate.getTemplateData();
-        IModel clone = decorateTemplate.cloneModel();
-
-        // Gather all fragment parts from this page to apply to the new document
-        // after decoration has taken place
-        Map<String, List<IModel>> pageFragments = new FragmentFinder(getDialectPrefix()).findFragments(model);
-
-        // Choose the decorator to use based on template mode, then apply it
-        TemplateMode templateMode = getTemplateMode();
-        XmlDocumentDecorator decorator
-                = templateMode == TemplateMode.HTML ? new HtmlDocumentDecorator(context, sortingStrategy, autoHeadMerging)
-                        : templateMode == TemplateMode.XML ? new XmlDocumentDecorator(context)
-                                : null;
-        if (decorator == null) {
-            throw new IllegalArgumentException(
-                    "Layout dialect cannot be applied to the " + templateMode + " template mode, only HTML and XML template modes are currently supported"
-            );
+        if (timer != null) {
+            timer.setLayoutTemplate(decorateTemplateData.getTemplate());
+            timer.end(DecorationPhase.LAYOUT_LOOKUP, startTime, decorateTemplate.size());
         }
-        IModel resultTemplate = decorator.decorate(clone, contentTemplate);
+
+        // Reuse the result of an earlier decoration of the same templates if we can
+        IModel resultTemplate = decorationCache != null ? decorationCache.get(context, decorateTemplate) : null;
+        boolean cacheResult = resultTemplate == null && decorationCache != null
+                && decorationCache.canPut(context, decorateTemplate);
+
+        // Gather the fragment parts from this page that the layout will use, to
+        // apply to the new document after decoration has taken place
+        startTime = timer != null ? timer.begin(DecorationPhase.FRAGMENT_FINDING) : 0;
+        FragmentUsage fragmentUsage = FragmentUsage.forTemplate(decorateTemplate, getDialectPrefix(), standardDialectPrefix);
+        Map<String, List<IModel>> pageFragments = new FragmentFinder(getDialectPrefix()).findFragments(model, fragmentUsage);
+        if (timer != null) {
+            timer.end(DecorationPhase.FRAGMENT_FINDING, startTime, model.size());
+        }
+
+        if (resultTemplate == null) {
+            IModel contentModel = contentSkeleton.createModel(context.getModelFactory(), model);
+
+            // Choose the decorator to use based on template mode, then apply it
+            TemplateMode templateMode = getTemplateMode();
+            XmlDocumentDecorator decorator
+                    = templateMode == TemplateMode.HTML ? new HtmlDocumentDecorator(context, sortingStrategy, autoHeadMerging, timer)
+                            : templateMode == TemplateMode.XML ? new XmlDocumentDecorator(context)
+                                    : null;
+            if (decorator == null) {
+                throw new IllegalArgumentException(
+                        "Layout dialect cannot be applied to the " + templateMode + " template mode, only HTML and XML template modes are currently supported"
+                );
+            }
+            startTime = timer != null ? timer.begin(DecorationPhase.DOCUMENT_MERGE) : 0;
+            resultTemplate = decorator.decorate(decorateTemplate.cloneModel(), contentModel);
+            if (timer != null) {
+                timer.end(DecorationPhase.DOCUMENT_MERGE, startTime, resultTemplate.size());
+            }
+            if (cacheResult) {
+                decorationCache.put(context, decorateTemplate, resultTemplate);
+            }
+        }
+
+        // Let the application know about the resources of the decorated page
+        if (getTemplateMode() == TemplateMode.HTML) {
+            Object resourceHintCollector = context.getVariable(ResourceHintCollector.VARIABLE_NAME);
+            if (resourceHintCollector instanceof ResourceHintCollector) {
+                ((ResourceHintCollector) resourceHintCollector).collect(
+                        resourceHintCache.getHints(context, decorateTemplate, resultTemplate));
+            }
+        }
+
         IModelExtensions.replaceModel(model, 0, resultTemplate);
         structureHandler.setTemplateData(decorateTemplateData);
 
         // Save layout fragments for use later by layout:fragment processors
+        startTime = timer != null ? timer.begin(DecorationPhase.FRAGMENT_COLLECTION) : 0;
         FragmentExtensions.setLocalFragmentCollection(structureHandler, context, pageFragments, true);
+        if (timer != null) {
+            timer.end(DecorationPhase.FRAGMENT_COLLECTION, startTime, pageFragments.size());
+        }
 
         // Scope variables in fragment definition to template.  Parameters *must* be
         // named as there is no mechanism for setting their name at the target
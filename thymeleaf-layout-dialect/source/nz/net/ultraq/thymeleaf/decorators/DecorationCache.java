@@ -0,0 +1,221 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.decorators;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+import nz.net.ultraq.thymeleaf.context.LayoutRenderState;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.engine.TemplateData;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.model.IModel;
+
+/**
+ * Cache of decorated layout results, shared across requests made to the same
+ * decorate processor (and so the same template mode, sorting strategy and head
+ * merging option).
+ * <p>
+ * Entries are keyed by the content and layout template names, and are only
+ * created when both templates are cacheable as per Thymeleaf's own template
+ * cache. Each entry weakly remembers the exact template data/model instances
+ * it was built from, so when Thymeleaf's template cache is cleared or an entry
+ * there expires, the new instances no longer match and the decoration is
+ * redone. Once the old instances have been garbage collected, their entries
+ * are dropped on the next use of the cache, whether or not those templates are
+ * ever requested again.
+ *
+ * @author zhanhb
+ */
+class DecorationCache {
+
+    /**
+     * Whether the current content template can make use of the cache. Only
+     * top-level decorations of a whole, cacheable template qualify, as in deeper
+     * hierarchies the model being decorated is itself the result of a previous
+     * decoration.
+     *
+     * @param context
+     * @return {@code true} if decorations for this template can be cached.
+     */
+    private static boolean isCacheable(ITemplateContext context) {
+        TemplateData templateData = context.getTemplateData();
+        return context.getTemplateStack().size() == 1
+                && !templateData.hasTemplateSelectors()
+                && templateData.getValidity().isCacheable();
+    }
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> staleTemplates = new ReferenceQueue<>();
+
+    /**
+     * Remove the entries of any templates that have since been garbage
+     * collected.
+     */
+    private void expungeStaleEntries() {
+        for (Reference<?> reference; (reference = staleTemplates.poll()) != null;) {
+            Key key = ((TemplateReference) reference).key;
+            Entry entry = entries.get(key);
+            if (entry != null && (entry.contentTemplateData == reference || entry.layoutTemplate == reference)) {
+                entries.remove(key, entry);
+            }
+        }
+    }
+
+    /**
+     * Retrieve the decoration result of the current content template with the
+     * given layout, replaying any title parts saved to the context when the
+     * result was first created.
+     *
+     * @param context
+     * @param layoutTemplate
+     * @return The cached decoration result, or {@code null} if there is no
+     * valid entry for the content/layout pair.
+     */
+    @Nullable
+    IModel get(ITemplateContext context, TemplateModel layoutTemplate) {
+        expungeStaleEntries();
+        if (!isCacheable(context)) {
+            return null;
+        }
+        TemplateData contentTemplateData = context.getTemplateData();
+        Key key = new Key(contentTemplateData.getTemplate(), layoutTemplate.getTemplateData().getTemplate());
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.contentTemplateData.get() != contentTemplateData || entry.layoutTemplate.get() != layoutTemplate) {
+            entries.remove(key, entry);
+            return null;
+        }
+        replay(context, entry.contentTitle, entry.layoutTitle);
+        return entry.result;
+    }
+
+    private static void replay(ITemplateContext context, @Nullable IModel contentTitle, @Nullable IModel layoutTitle) {
+        LayoutRenderState state = LayoutRenderState.of(context);
+        LayoutRenderState replayed = state;
+        if (contentTitle != null && replayed.getContentTitle() == null) {
+            replayed = replayed.withContentTitle(contentTitle);
+        }
+        if (layoutTitle != null && replayed.getLayoutTitle() == null) {
+            replayed = replayed.withLayoutTitle(layoutTitle);
+        }
+        if (replayed != state) {
+            replayed.setOn(context);
+        }
+    }
+
+    /**
+     * Whether a decoration about to be performed can be saved to the cache
+     * afterwards. Besides the template checks, the title parts must not yet
+     * exist on the context so that those saved by the decoration can be
+     * captured with the result.
+     *
+     * @param context
+     * @param layoutTemplate
+     * @return {@code true} if {@link #put} should be called with the result.
+     */
+    boolean canPut(ITemplateContext context, TemplateModel layoutTemplate) {
+        if (!isCacheable(context) || !layoutTemplate.getTemplateData().getValidity().isCacheable()) {
+            return false;
+        }
+        LayoutRenderState state = LayoutRenderState.of(context);
+        return state.getContentTitle() == null && state.getLayoutTitle() == null;
+    }
+
+    /**
+     * Save the result of decorating the current content template with the
+     * given layout. The result model must not be modified afterwards.
+     *
+     * @param context
+     * @param layoutTemplate
+     * @param result
+     */
+    void put(ITemplateContext context, TemplateModel layoutTemplate, IModel result) {
+        expungeStaleEntries();
+        TemplateData contentTemplateData = context.getTemplateData();
+        LayoutRenderState state = LayoutRenderState.of(context);
+        Key key = new Key(contentTemplateData.getTemplate(), layoutTemplate.getTemplateData().getTemplate());
+        entries.put(key, new Entry(
+                new TemplateReference(contentTemplateData, key, staleTemplates),
+                new TemplateReference(layoutTemplate, key, staleTemplates),
+                result, state.getContentTitle(), state.getLayoutTitle()));
+    }
+
+    private static final class Key {
+
+        private final String contentTemplate;
+        private final String layoutTemplate;
+
+        Key(String contentTemplate, String layoutTemplate) {
+            this.contentTemplate = contentTemplate;
+            this.layoutTemplate = layoutTemplate;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return contentTemplate.equals(other.contentTemplate) && layoutTemplate.equals(other.layoutTemplate);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * contentTemplate.hashCode() + layoutTemplate.hashCode();
+        }
+
+    }
+
+    private static final class TemplateReference extends WeakReference<Object> {
+
+        final Key key;
+
+        TemplateReference(Object template, Key key, ReferenceQueue<Object> queue) {
+            super(template, queue);
+            this.key = key;
+        }
+
+    }
+
+    private static final class Entry {
+
+        final TemplateReference contentTemplateData;
+        final TemplateReference layoutTemplate;
+        final IModel result;
+        final IModel contentTitle;
+        final IModel layoutTitle;
+
+        Entry(TemplateReference contentTemplateData, TemplateReference layoutTemplate, IModel result,
+                IModel contentTitle, IModel layoutTitle) {
+            this.contentTemplateData = contentTemplateData;
+            this.layoutTemplate = layoutTemplate;
+            this.result = result;
+            this.contentTitle = contentTitle;
+            this.layoutTitle = layoutTitle;
+        }
+
+    }
+
+}
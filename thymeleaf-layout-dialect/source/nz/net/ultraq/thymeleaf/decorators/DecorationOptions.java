@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.decorators;
+
+import javax.annotation.Nullable;
+
+/**
+ * How the layout dialect decorates templates: the sorting strategy for
+ * {@code <head>} elements and the optional behaviours that go with it.
+ * Options can't be modified; changing one creates a new set of options with
+ * the others carried over, eg:
+ * <pre>
+ * new LayoutDialect(new DecorationOptions(new GroupingStrategy())
+ *     .withCacheDecorations(true));
+ * </pre>
+ *
+ * @author zhanhb
+ */
+public final class DecorationOptions {
+
+    private final SortingStrategy sortingStrategy;
+    private final boolean autoHeadMerging;
+    private final boolean cacheDecorations;
+    private final LayoutDialectListener listener;
+
+    /**
+     * Constructor, create options for the given sorting strategy, with
+     * automatic head merging on and decoration caching off.
+     *
+     * @param sortingStrategy
+     */
+    public DecorationOptions(@Nullable SortingStrategy sortingStrategy) {
+        this(sortingStrategy, true, false, null);
+    }
+
+    private DecorationOptions(SortingStrategy sortingStrategy, boolean autoHeadMerging, boolean cacheDecorations,
+            LayoutDialectListener listener) {
+        this.sortingStrategy = sortingStrategy;
+        this.autoHeadMerging = autoHeadMerging;
+        this.cacheDecorations = cacheDecorations;
+        this.listener = listener;
+    }
+
+    /**
+     * Return a copy of these options with the given sorting strategy.
+     *
+     * @param sortingStrategy
+     * @return New options with the sorting strategy replaced.
+     */
+    public DecorationOptions withSortingStrategy(@Nullable SortingStrategy sortingStrategy) {
+        return new DecorationOptions(sortingStrategy, autoHeadMerging, cacheDecorations, listener);
+    }
+
+    /**
+     * Return a copy of these options with automatic head merging turned on or
+     * off.
+     *
+     * @param autoHeadMerging Experimental option, set to {@code false} to skip
+     * the automatic merging of an HTML {@code <head>} section.
+     * @return New options with the head merging option replaced.
+     */
+    public DecorationOptions withAutoHeadMerging(boolean autoHeadMerging) {
+        return new DecorationOptions(sortingStrategy, autoHeadMerging, cacheDecorations, listener);
+    }
+
+    /**
+     * Return a copy of these options with decoration caching turned on or off.
+     *
+     * @param cacheDecorations Set to {@code true} to reuse the result of
+     * decorating a content template with its layout across requests, for as
+     * long as both templates remain in Thymeleaf's template cache.  Only
+     * applies to whole, cacheable templates that are not themselves being
+     * decorated or included.
+     * @return New options with the caching option replaced.
+     */
+    public DecorationOptions withCacheDecorations(boolean cacheDecorations) {
+        return new DecorationOptions(sortingStrategy, autoHeadMerging, cacheDecorations, listener);
+    }
+
+    /**
+     * Return a copy of these options with the given decoration listener.
+     *
+     * @param listener Receives the start and end of each phase of every
+     * decoration, with how long it took.  Set to {@code null} to not time
+     * decorations at all.
+     * @return New options with the listener replaced.
+     */
+    public DecorationOptions withListener(@Nullable LayoutDialectListener listener) {
+        return new DecorationOptions(sortingStrategy, autoHeadMerging, cacheDecorations, listener);
+    }
+
+    @Nullable
+    public SortingStrategy getSortingStrategy() {
+        return sortingStrategy;
+    }
+
+    public boolean isAutoHeadMerging() {
+        return autoHeadMerging;
+    }
+
+    public boolean isCacheDecorations() {
+        return cacheDecorations;
+    }
+
+    @Nullable
+    public LayoutDialectListener getListener() {
+        return listener;
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.decorators;
+
+/**
+ * The phases of decorating a template with its layout, as reported to a
+ * {@link LayoutDialectListener}. Each phase notes what the size passed at its
+ * end is a count of.
+ *
+ * @author zhanhb
+ */
+public enum DecorationPhase {
+
+    /**
+     * Working out which layout to use and loading it. Size: events in the
+     * layout template.
+     */
+    LAYOUT_LOOKUP,
+
+    /**
+     * Gathering the fragments of the content template for the layout to use.
+     * Size: events in the content template that were searched.
+     */
+    FRAGMENT_FINDING,
+
+    /**
+     * Merging the content template into the layout, which in HTML mode
+     * encloses the {@link #HEAD_MERGE} and {@link #BODY_MERGE} phases. Skipped
+     * when the result comes from the decoration cache. Size: events in the
+     * decorated document.
+     */
+    DOCUMENT_MERGE,
+
+    /**
+     * Merging the {@code <head>} sections, in HTML mode only. Size: events in
+     * the resulting {@code <head>}.
+     */
+    HEAD_MERGE,
+
+    /**
+     * Merging the {@code <body>} sections, in HTML mode only. Size: events in
+     * the resulting {@code <body>}.
+     */
+    BODY_MERGE,
+
+    /**
+     * Making the content fragments available to the layout. Size: number of
+     * distinct fragment names found in the content template.
+     */
+    FRAGMENT_COLLECTION
+
+}
@@ -53,7 +53,19 @@ public class DecoratorProcessor extends DecorateProcessor {
      */
     public DecoratorProcessor(TemplateMode templateMode, String dialectPrefix, SortingStrategy sortingStrategy,
             boolean manualHeadMerging) {
-        super(templateMode, dialectPrefix, sortingStrategy, manualHeadMerging, PROCESSOR_NAME);
+        this(templateMode, dialectPrefix, new DecorationOptions(sortingStrategy).withAutoHeadMerging(manualHeadMerging));
+    }
+
+    /**
+     * Constructor, configure this processor to work on the old 'decorator'
+     * attribute and to decorate with the given options.
+     *
+     * @param templateMode
+     * @param dialectPrefix
+     * @param options
+     */
+    public DecoratorProcessor(TemplateMode templateMode, String dialectPrefix, DecorationOptions options) {
+        super(templateMode, dialectPrefix, options, PROCESSOR_NAME);
     }
 
     /**
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.decorators;
+
+import javax.annotation.Nullable;
+
+/**
+ * Receives the start and end of each {@link DecorationPhase} of every
+ * {@code layout:decorate} processed, so that an application can see where the
+ * time spent decorating goes, eg: to report it to a monitoring system.
+ * <p>
+ * A listener is given to the layout dialect through
+ * {@link DecorationOptions#withListener}. Without one, none of the phases are
+ * timed. Callbacks are made on the thread processing the template, so may be
+ * made from many threads at once, and should return quickly as they add to the
+ * time taken to process the template. Phases that end in an exception don't
+ * get an end callback.
+ *
+ * @author zhanhb
+ */
+public interface LayoutDialectListener {
+
+    /**
+     * Called as a decoration phase starts.
+     *
+     * @param phase
+     * @param contentTemplate Name of the template being decorated.
+     * @param layoutTemplate Name of the layout template, or {@code null} for
+     * the {@link DecorationPhase#LAYOUT_LOOKUP} phase as it isn't known yet.
+     */
+    void phaseStarted(DecorationPhase phase, String contentTemplate, @Nullable String layoutTemplate);
+
+    /**
+     * Called as a decoration phase ends.
+     *
+     * @param phase
+     * @param contentTemplate Name of the template being decorated.
+     * @param layoutTemplate Name of the layout template.
+     * @param durationNanos How long the phase took, in nanoseconds.
+     * @param size The size of what the phase worked on, as described by each
+     * {@link DecorationPhase}.
+     */
+    void phaseEnded(DecorationPhase phase, String contentTemplate, String layoutTemplate, long durationNanos, int size);
+
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.decorators;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import nz.net.ultraq.thymeleaf.models.extensions.ITemplateEventExtensions;
+import org.thymeleaf.model.IAttribute;
+import org.thymeleaf.model.ICloseElementTag;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+
+/**
+ * A resource that a page needs, as declared in the {@code <head>} of a
+ * decorated page, that can be announced to the browser before the page itself
+ * is sent, eg: through a {@code Link: <...>; rel=preload} header or a
+ * {@code 103 Early Hints} response. Module scripts are announced with
+ * {@code rel=modulepreload} instead.
+ *
+ * @author zhanhb
+ * @see ResourceHintCollector
+ */
+public final class ResourceHint {
+
+    /**
+     * Find the resources declared by the immediate children of the
+     * {@code <head>} element in the given model: stylesheet, preload and module
+     * preload {@code <link>}s, and {@code <script>}s with a {@code src}.
+     * <p>
+     * Hints are found before the page is processed, so only static URLs on
+     * elements that no processor will act on are found. Elements with any
+     * processed attribute, like {@code th:src} or a {@code th:if} that could
+     * remove the element, are skipped.
+     *
+     * @param model A model containing a {@code <head>} element.
+     * @return The resources in the order they are declared, with only the first
+     * of any repeated URLs.
+     */
+    @Nonnull
+    public static List<ResourceHint> findHints(@Nonnull IModel model) {
+        Map<String, ResourceHint> hints = new LinkedHashMap<>();
+        int depth = -1;
+        for (int i = 0, size = model.size(); i < size; i++) {
+            ITemplateEvent event = model.get(i);
+            if (depth < 0) {
+                if (ITemplateEventExtensions.isOpeningElementOf(event, "head")) {
+                    depth = 0;
+                }
+                continue;
+            }
+            if (depth == 0 && event instanceof IProcessableElementTag) {
+                ResourceHint hint = fromElement((IProcessableElementTag) event);
+                if (hint != null && !hints.containsKey(hint.url)) {
+                    hints.put(hint.url, hint);
+                }
+            }
+            if (event instanceof IOpenElementTag) {
+                depth++;
+            } else if (event instanceof ICloseElementTag && !((ICloseElementTag) event).isUnmatched()) {
+                if (depth-- == 0) {
+                    break;
+                }
+            }
+        }
+        return hints.isEmpty() ? Collections.<ResourceHint>emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(hints.values()));
+    }
+
+    @Nullable
+    private static ResourceHint fromElement(IProcessableElementTag tag) {
+        for (IAttribute attribute : tag.getAllAttributes()) {
+            if (attribute.getAttributeDefinition().hasAssociatedProcessors()) {
+                return null;
+            }
+        }
+        String crossOrigin = tag.getAttributeValue("crossorigin");
+        switch (tag.getElementCompleteName()) {
+            case "script": {
+                String src = tag.getAttributeValue("src");
+                if (src == null || src.isEmpty()) {
+                    return null;
+                }
+                String type = tag.getAttributeValue("type");
+                return type != null && "module".equalsIgnoreCase(type.trim())
+                        ? new ResourceHint(src, MODULE_PRELOAD, "script", crossOrigin)
+                        : new ResourceHint(src, PRELOAD, "script", crossOrigin);
+            }
+            case "link": {
+                String href = tag.getAttributeValue("href");
+                String rel = tag.getAttributeValue("rel");
+                if (href == null || href.isEmpty() || rel == null) {
+                    return null;
+                }
+                for (String type : rel.toLowerCase(Locale.ENGLISH).split("\\s+")) {
+                    switch (type) {
+                        case "stylesheet":
+                            return new ResourceHint(href, PRELOAD, "style", crossOrigin);
+                        case MODULE_PRELOAD: {
+                            String as = tag.getAttributeValue("as");
+                            return new ResourceHint(href, MODULE_PRELOAD, as != null && !as.isEmpty() ? as : "script", crossOrigin);
+                        }
+                        case PRELOAD: {
+                            String as = tag.getAttributeValue("as");
+                            return as != null && !as.isEmpty() ? new ResourceHint(href, PRELOAD, as, crossOrigin) : null;
+                        }
+                        default:
+                            break;
+                    }
+                }
+                return null;
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Link relation for resources fetched as they are.
+     */
+    public static final String PRELOAD = "preload";
+
+    /**
+     * Link relation for JavaScript modules, which are fetched and parsed along
+     * with their dependencies.
+     */
+    public static final String MODULE_PRELOAD = "modulepreload";
+
+    private final String url;
+    private final String rel;
+    private final String as;
+    private final String crossOrigin;
+
+    /**
+     * Constructor, create a preload hint for the given resource.
+     *
+     * @param url
+     * @param as Destination of the resource, eg: {@code script}, {@code style}.
+     * @param crossOrigin Value of the resource's {@code crossorigin} attribute,
+     * or {@code null} if it doesn't have one.
+     */
+    public ResourceHint(@Nonnull String url, @Nonnull String as, @Nullable String crossOrigin) {
+        this(url, PRELOAD, as, crossOrigin);
+    }
+
+    /**
+     * Constructor, create a hint for the given resource.
+     *
+     * @param url
+     * @param rel Link relation to announce the resource with, either
+     * {@link #PRELOAD} or {@link #MODULE_PRELOAD}.
+     * @param as Destination of the resource, eg: {@code script}, {@code style}.
+     * @param crossOrigin Value of the resource's {@code crossorigin} attribute,
+     * or {@code null} if it doesn't have one.
+     */
+    public ResourceHint(@Nonnull String url, @Nonnull String rel, @Nonnull String as, @Nullable String crossOrigin) {
+        this.url = Objects.requireNonNull(url);
+        this.rel = Objects.requireNonNull(rel);
+        this.as = Objects.requireNonNull(as);
+        this.crossOrigin = crossOrigin;
+    }
+
+    /**
+     * Return the URL of the resource, as written in the template.
+     *
+     * @return Resource URL.
+     */
+    @Nonnull
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Return the link relation to announce the resource with.
+     *
+     * @return {@link #PRELOAD} or {@link #MODULE_PRELOAD}.
+     */
+    @Nonnull
+    public String getRel() {
+        return rel;
+    }
+
+    /**
+     * Return the destination of the resource, as used for the {@code as}
+     * parameter of a preload link.
+     *
+     * @return Resource destination.
+     */
+    @Nonnull
+    public String getAs() {
+        return as;
+    }
+
+    /**
+     * Return the CORS setting of the resource.
+     *
+     * @return Value of the resource's {@code crossorigin} attribute, which is
+     * empty for an attribute without a value, or {@code null} if there is no
+     * such attribute.
+     */
+    @Nullable
+    public String getCrossOrigin() {
+        return crossOrigin;
+    }
+
+    /**
+     * Return this hint as the value of an HTTP {@code Link} header.
+     *
+     * @return eg: {@code </main.css>; rel=preload; as=style}
+     */
+    public String toLinkHeader() {
+        StringBuilder header = new StringBuilder(url.length() + 40)
+                .append('<').append(url).append(">; rel=").append(rel).append("; as=").append(as);
+        if (crossOrigin != null) {
+            header.append("; crossorigin");
+            if (!crossOrigin.isEmpty()) {
+                header.append('=').append(crossOrigin);
+            }
+        }
+        return header.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ResourceHint)) {
+            return false;
+        }
+        ResourceHint other = (ResourceHint) obj;
+        return url.equals(other.url) && rel.equals(other.rel) && as.equals(other.as)
+                && Objects.equals(crossOrigin, other.crossOrigin);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(url, rel, as, crossOrigin);
+    }
+
+    @Override
+    public String toString() {
+        return toLinkHeader();
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.decorators;
+
+import java.util.List;
+import nz.net.ultraq.thymeleaf.internal.IdentityCache;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.engine.TemplateData;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.model.IModel;
+
+/**
+ * Cache of the resource hints of decorated pages, keyed by the layout template
+ * and the content template data they were found for. As with the
+ * {@link DecorationCache}, only whole, cacheable templates that aren't being
+ * decorated themselves qualify. Both keys are only weakly referenced, so
+ * entries go away along with the template instances they were created from
+ * once Thymeleaf evicts them from its template cache.
+ *
+ * @author zhanhb
+ */
+class ResourceHintCache {
+
+    private final IdentityCache<TemplateModel, IdentityCache<TemplateData, List<ResourceHint>>> entries = new IdentityCache<>();
+
+    /**
+     * Return the resource hints for the decoration of the current content
+     * template with the given layout.
+     *
+     * @param context
+     * @param layoutTemplate
+     * @param result The result of the decoration, to find the hints in if they
+     * aren't cached.
+     * @return Resource hints of the decorated page.
+     */
+    List<ResourceHint> getHints(ITemplateContext context, TemplateModel layoutTemplate, IModel result) {
+        TemplateData contentTemplateData = context.getTemplateData();
+        if (context.getTemplateStack().size() != 1
+                || contentTemplateData.hasTemplateSelectors()
+                || !contentTemplateData.getValidity().isCacheable()
+                || !layoutTemplate.getTemplateData().getValidity().isCacheable()) {
+            return ResourceHint.findHints(result);
+        }
+
+        return entries.getOrCreate(layoutTemplate, () -> new IdentityCache<TemplateData, List<ResourceHint>>())
+                .getOrCreate(contentTemplateData, () -> ResourceHint.findHints(result));
+    }
+
+}
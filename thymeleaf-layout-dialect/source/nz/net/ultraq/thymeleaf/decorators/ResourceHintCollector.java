@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.decorators;
+
+import java.util.List;
+
+/**
+ * Receives the resources needed by a decorated page, so that an application
+ * can announce them to the browser before the rest of the page is rendered.
+ * <p>
+ * To receive the resources, set an instance of this interface as a variable
+ * named {@link #VARIABLE_NAME} on the context used to process the template.
+ * Each {@code layout:decorate} processed with that context then passes the
+ * resources of its resulting page to the collector, before any of the page's
+ * content has been processed, so only resources that processing the page can't
+ * change or remove are included. The resources of whole, cacheable templates are
+ * only worked out once for each content/layout pair, for as long as both
+ * templates remain in Thymeleaf's template cache.
+ * <p>
+ * This means that any {@code <link>} or {@code <script>} with a processed
+ * attribute is left out, even one whose URL never changes, eg:
+ * {@code <script th:src="@{/main.js}">}. Resources whose URLs are worked out
+ * by {@code th:href}, {@code th:src} or the like, or which may be removed by a
+ * {@code th:if}, {@code th:remove} and so on, have to be announced by the
+ * application itself, or declared with plain attributes to be picked up here.
+ *
+ * @author zhanhb
+ */
+public interface ResourceHintCollector {
+
+    /**
+     * Name of the context variable to set a collector to.
+     */
+    String VARIABLE_NAME = "layoutDialectResourceHintCollector";
+
+    /**
+     * Called with the resources declared in the {@code <head>} of a decorated
+     * page.
+     *
+     * @param hints An unmodifiable list of resources, in the order they appear
+     * in the page.
+     */
+    void collect(List<ResourceHint> hints);
+
+}
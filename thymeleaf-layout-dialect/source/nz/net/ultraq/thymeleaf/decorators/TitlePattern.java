@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.decorators;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelFactory;
+import org.thymeleaf.model.IText;
+
+/**
+ * A {@code layout:title-pattern} value broken up into its literal text and
+ * title tokens, so that the pattern only needs to be parsed once and rendering
+ * a title is a walk over the parts. Literal text is kept as ready-made text
+ * events, which are immutable and so can be shared by every title created
+ * from the pattern.
+ *
+ * @author zhanhb
+ */
+final class TitlePattern {
+
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("\\$(LAYOUT|DECORATOR|CONTENT)_TITLE");
+
+    private enum Token {
+        LAYOUT_TITLE,
+        CONTENT_TITLE
+    }
+
+    /**
+     * Parse the given title pattern.
+     *
+     * @param titlePattern
+     * @param modelFactory Factory to create the text events of the pattern
+     * with.
+     * @return The compiled pattern.
+     */
+    static TitlePattern compile(String titlePattern, IModelFactory modelFactory) {
+        List<Object> parts = new ArrayList<>();
+        boolean deprecated = false;
+        Matcher matcher = TOKEN_PATTERN.matcher(titlePattern);
+        int textStart = 0;
+        while (matcher.find()) {
+            if (matcher.start() > textStart) {
+                parts.add(modelFactory.createText(titlePattern.substring(textStart, matcher.start())));
+            }
+            String type = matcher.group(1);
+            if ("DECORATOR".equals(type)) {
+                deprecated = true;
+            }
+            parts.add("CONTENT".equals(type) ? Token.CONTENT_TITLE : Token.LAYOUT_TITLE);
+            textStart = matcher.end();
+        }
+        if (textStart < titlePattern.length()) {
+            parts.add(modelFactory.createText(titlePattern.substring(textStart)));
+        }
+        return new TitlePattern(parts.toArray(), deprecated);
+    }
+
+    private final Object[] parts;
+    private final boolean deprecated;
+
+    private TitlePattern(Object[] parts, boolean deprecated) {
+        this.parts = parts;
+        this.deprecated = deprecated;
+    }
+
+    /**
+     * Add the title made from this pattern and the given titles to a model.
+     *
+     * @param titleModel Model to add the title events to.
+     * @param layoutTitle
+     * @param contentTitle
+     */
+    void apply(IModel titleModel, IModel layoutTitle, IModel contentTitle) {
+        for (Object part : parts) {
+            if (part == Token.LAYOUT_TITLE) {
+                titleModel.addModel(layoutTitle);
+            } else if (part == Token.CONTENT_TITLE) {
+                titleModel.addModel(contentTitle);
+            } else {
+                titleModel.add((IText) part);
+            }
+        }
+    }
+
+    /**
+     * Return whether the pattern uses the deprecated {@code $DECORATOR_TITLE}
+     * token.
+     *
+     * @return {@code true} if the pattern has a {@code $DECORATOR_TITLE} token.
+     */
+    boolean isDeprecated() {
+        return deprecated;
+    }
+
+}
@@ -16,8 +16,8 @@
 package nz.net.ultraq.thymeleaf.decorators;
 
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import nz.net.ultraq.thymeleaf.context.LayoutRenderState;
+import nz.net.ultraq.thymeleaf.internal.ConfigurationCache;
 import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,18 +43,27 @@ public class TitlePatternProcessor extends AbstractAttributeTagProcessor {
 
     private static final Logger logger = LoggerFactory.getLogger(TitlePatternProcessor.class);
 
-    @Deprecated
-    private static final String TOKEN_DECORATOR_TITLE = "$DECORATOR_TITLE";
-    // private static final String TOKEN_CONTENT_TITLE   = "$CONTENT_TITLE";
-    private static final String TOKEN_LAYOUT_TITLE = "$LAYOUT_TITLE";
-    private static final Pattern TOKEN_PATTERN = Pattern.compile("(\\$(LAYOUT|DECORATOR|CONTENT)_TITLE)");
+    private static final ConfigurationCache<String, TitlePattern> TITLE_PATTERNS = new ConfigurationCache<>();
 
     private static final AtomicBoolean warned = new AtomicBoolean();
 
     public static final String PROCESSOR_NAME = "title-pattern";
     public static final int PROCESSOR_PRECEDENCE = 1;
 
+    /**
+     * @deprecated The content title is now kept in the
+     * {@link LayoutRenderState}. It is still set under this name for
+     * compatibility, but this will be removed in a future version.
+     */
+    @Deprecated
     public static final String CONTENT_TITLE_KEY = "LayoutDialect::ContentTitle";
+
+    /**
+     * @deprecated The layout title is now kept in the
+     * {@link LayoutRenderState}. It is still set under this name for
+     * compatibility, but this will be removed in a future version.
+     */
+    @Deprecated
     public static final String LAYOUT_TITLE_KEY = "LayoutDialect::LayoutTitle";
 
     /**
@@ -86,13 +95,14 @@ public class TitlePatternProcessor extends AbstractAttributeTagProcessor {
             throw new IllegalArgumentException(attributeName + " processor should only appear in a <title> element");
         }
 
-        String titlePattern = attributeValue;
         IModelFactory modelFactory = context.getModelFactory();
 
-        IModel contentTitle = (IModel) context.getVariable(CONTENT_TITLE_KEY);
-        IModel layoutTitle = (IModel) context.getVariable(LAYOUT_TITLE_KEY);
+        LayoutRenderState state = LayoutRenderState.of(context);
+        IModel contentTitle = state.getContentTitle();
+        IModel layoutTitle = state.getLayoutTitle();
 
-        if (!StringUtils.isEmpty(titlePattern) && titlePattern.contains(TOKEN_DECORATOR_TITLE)) {
+        TitlePattern titlePattern = StringUtils.isEmpty(attributeValue) ? null : getTitlePattern(context, attributeValue);
+        if (titlePattern != null && titlePattern.isDeprecated()) {
             if (warned.compareAndSet(false, true)) {
                 logger.warn(
                         "The $DECORATOR_TITLE token is deprecated and will be removed in the next major version of the layout dialect.  "
@@ -102,22 +112,11 @@ public class TitlePatternProcessor extends AbstractAttributeTagProcessor {
             }
         }
 
-        // Break the title pattern up into tokens to map to their respective models
+        // Map the tokens of the title pattern to their respective models
         IModel titleModel = modelFactory.createModel();
         if (IModelExtensions.asBoolean(layoutTitle) && IModelExtensions.asBoolean(contentTitle)) {
-            Matcher matcher = TOKEN_PATTERN.matcher(titlePattern);
-            while (matcher.find()) {
-                String text = titlePattern.substring(matcher.regionStart(), matcher.start());
-                if (!StringUtils.isEmpty(text)) {
-                    titleModel.add(modelFactory.createText(text));
-                }
-                String token = matcher.group(1);
-                titleModel.addModel(TOKEN_LAYOUT_TITLE.equals(token) || TOKEN_DECORATOR_TITLE.equals(token) ? layoutTitle : contentTitle);
-                matcher.region(matcher.regionStart() + text.length() + token.length(), titlePattern.length());
-            }
-            String remainingText = titlePattern.substring(matcher.regionStart());
-            if (!StringUtils.isEmpty(remainingText)) {
-                titleModel.add(modelFactory.createText(remainingText));
+            if (titlePattern != null) {
+                titlePattern.apply(titleModel, layoutTitle, contentTitle);
             }
         } else if (IModelExtensions.asBoolean(contentTitle)) {
             titleModel.addModel(contentTitle);
@@ -128,4 +127,21 @@ public class TitlePatternProcessor extends AbstractAttributeTagProcessor {
         structureHandler.setBody(titleModel, true);
     }
 
+    /**
+     * Return the compiled form of the given title pattern, compiling and
+     * keeping it if it hasn't been seen before.
+     *
+     * @param context
+     * @param titlePattern
+     * @return The compiled title pattern.
+     */
+    private static TitlePattern getTitlePattern(ITemplateContext context, String titlePattern) {
+        TitlePattern compiled = TITLE_PATTERNS.get(context.getConfiguration(), titlePattern);
+        if (compiled == null) {
+            compiled = TITLE_PATTERNS.put(context.getConfiguration(), titlePattern,
+                    TitlePattern.compile(titlePattern, context.getModelFactory()));
+        }
+        return compiled;
+    }
+
 }
@@ -15,8 +15,11 @@
  */
 package nz.net.ultraq.thymeleaf.decorators.html;
 
+import javax.annotation.Nullable;
+import nz.net.ultraq.thymeleaf.decorators.DecorationPhase;
 import nz.net.ultraq.thymeleaf.decorators.SortingStrategy;
 import nz.net.ultraq.thymeleaf.decorators.xml.XmlDocumentDecorator;
+import nz.net.ultraq.thymeleaf.internal.DecorationTimer;
 import nz.net.ultraq.thymeleaf.internal.ITemplateEventPredicate;
 import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
 import nz.net.ultraq.thymeleaf.models.extensions.ITemplateEventExtensions;
@@ -36,6 +39,7 @@ public class HtmlDocumentDecorator extends XmlDocumentDecorator {
 
     private final boolean autoHeadMerging;
     private final SortingStrategy sortingStrategy;
+    private final DecorationTimer timer;
 
     /**
      * Constructor, apply the given sorting strategy to the decorator.
@@ -45,9 +49,25 @@ public class HtmlDocumentDecorator extends XmlDocumentDecorator {
      * @param autoHeadMerging
      */
     public HtmlDocumentDecorator(ITemplateContext context, SortingStrategy sortingStrategy, boolean autoHeadMerging) {
+        this(context, sortingStrategy, autoHeadMerging, null);
+    }
+
+    /**
+     * Constructor, apply the given sorting strategy to the decorator and time
+     * the {@code <head>} and {@code <body>} merges.
+     *
+     * @param context
+     * @param sortingStrategy
+     * @param autoHeadMerging
+     * @param timer Timer for the decoration phases, or {@code null} to not time
+     * them.
+     */
+    public HtmlDocumentDecorator(ITemplateContext context, SortingStrategy sortingStrategy, boolean autoHeadMerging,
+            @Nullable DecorationTimer timer) {
         super(context);
         this.sortingStrategy = sortingStrategy;
         this.autoHeadMerging = autoHeadMerging;
+        this.timer = timer;
     }
 
     /**
@@ -63,10 +83,12 @@ public class HtmlDocumentDecorator extends XmlDocumentDecorator {
         IModel resultDocumentModel = targetDocumentModel.cloneModel();
         // Head decoration
         ITemplateEventPredicate headModelFinder = event -> ITemplateEventExtensions.isOpeningElementOf(event, "head");
+        long startTime = timer != null ? timer.begin(DecorationPhase.HEAD_MERGE) : 0;
+        IModel resultHeadModel;
 
         if (autoHeadMerging) {
             IModel targetHeadModel = IModelExtensions.findModel(resultDocumentModel, headModelFinder);
-            IModel resultHeadModel = new HtmlHeadDecorator(context, sortingStrategy).decorate(targetHeadModel,
+            resultHeadModel = new HtmlHeadDecorator(context, sortingStrategy).decorate(targetHeadModel,
                     IModelExtensions.findModel(sourceDocumentModel, headModelFinder)
             );
             if (IModelExtensions.asBoolean(resultHeadModel)) {
@@ -84,14 +106,19 @@ public class HtmlDocumentDecorator extends XmlDocumentDecorator {
             //       the basis for `resultDocumentModel` should be the source model.
             //       This 'hack' is OK for an experimental option, but the fact that
             //       it exists means I should rethink how the result model is made.
+            resultHeadModel = IModelExtensions.findModel(sourceDocumentModel, headModelFinder);
             IModelExtensions.replaceModel(resultDocumentModel,
                     IModelExtensions.findIndexOf(resultDocumentModel, headModelFinder),
-                    IModelExtensions.findModel(sourceDocumentModel, headModelFinder)
+                    resultHeadModel
             );
         }
+        if (timer != null) {
+            timer.end(DecorationPhase.HEAD_MERGE, startTime, resultHeadModel != null ? resultHeadModel.size() : 0);
+        }
 
         // Body decoration
         ITemplateEventPredicate bodyModelFinder = event -> ITemplateEventExtensions.isOpeningElementOf(event, "body");
+        startTime = timer != null ? timer.begin(DecorationPhase.BODY_MERGE) : 0;
         IModel targetBodyModel = IModelExtensions.findModel(resultDocumentModel, bodyModelFinder);
         IModel resultBodyModel = new HtmlBodyDecorator(context).decorate(targetBodyModel,
                 IModelExtensions.findModel(sourceDocumentModel, bodyModelFinder)
@@ -105,6 +132,9 @@ public class HtmlDocumentDecorator extends XmlDocumentDecorator {
                 }) - 1, resultBodyModel, modelFactory);
             }
         }
+        if (timer != null) {
+            timer.end(DecorationPhase.BODY_MERGE, startTime, resultBodyModel != null ? resultBodyModel.size() : 0);
+        }
 
         return super.decorate(resultDocumentModel, sourceDocumentModel);
     }
@@ -15,8 +15,11 @@
  */
 package nz.net.ultraq.thymeleaf.decorators.html;
 
+import java.util.ArrayList;
+import java.util.List;
 import nz.net.ultraq.thymeleaf.decorators.Decorator;
 import nz.net.ultraq.thymeleaf.decorators.SortingStrategy;
+import nz.net.ultraq.thymeleaf.internal.HeadChildModels;
 import nz.net.ultraq.thymeleaf.internal.ITemplateEventPredicate;
 import nz.net.ultraq.thymeleaf.models.AttributeMerger;
 import nz.net.ultraq.thymeleaf.models.extensions.ChildModelIterator;
@@ -97,13 +100,24 @@ public class HtmlHeadDecorator implements Decorator {
         // Merge the rest of the source <head> elements with the target <head>
         // elements using the current merging strategy
         if (IModelExtensions.asBoolean(sourceHeadModel) && IModelExtensions.asBoolean(targetHeadModel)) {
-            ChildModelIterator it = IModelExtensions.childModelIterator(sourceHeadModel);
+            // Only the built-in strategies are known to be safe to give read-only
+            // views, anything else gets copies of the children
+            ChildModelIterator it = HeadChildModels.isBuiltIn(sortingStrategy)
+                    ? IModelExtensions.childModelViewIterator(sourceHeadModel)
+                    : IModelExtensions.childModelIterator(sourceHeadModel);
             if (it != null) {
+                List<IModel> childModels = new ArrayList<>();
                 while (it.hasNext()) {
                     IModel model = it.next();
-                    if (isTitle.test(IModelExtensions.first(model))) {
-                        continue;
+                    if (!isTitle.test(IModelExtensions.first(model))) {
+                        childModels.add(model);
                     }
+                }
+                IModel mergedHeadModel = HeadChildModels.merge(sortingStrategy, resultHeadModel, childModels, modelFactory);
+                if (mergedHeadModel != null) {
+                    return mergedHeadModel;
+                }
+                for (IModel model : childModels) {
                     IModelExtensions.insertModelWithWhitespace(resultHeadModel,
                             sortingStrategy.findPositionForModel(resultHeadModel, model),
                             model, modelFactory);
@@ -17,13 +17,12 @@ package nz.net.ultraq.thymeleaf.decorators.html;
 
 import java.util.Collections;
 import nz.net.ultraq.thymeleaf.LayoutDialect;
-import nz.net.ultraq.thymeleaf.context.extensions.IContextExtensions;
+import nz.net.ultraq.thymeleaf.context.LayoutRenderState;
 import nz.net.ultraq.thymeleaf.decorators.Decorator;
 import nz.net.ultraq.thymeleaf.decorators.TitlePatternProcessor;
 import nz.net.ultraq.thymeleaf.internal.IContextDelegate;
 import nz.net.ultraq.thymeleaf.internal.ModelBuilder;
 import nz.net.ultraq.thymeleaf.models.ElementMerger;
-import nz.net.ultraq.thymeleaf.models.extensions.ChildModelIterator;
 import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.model.IAttribute;
@@ -58,37 +57,37 @@ public class HtmlTitleDecorator implements Decorator {
         return modelBuilder.createNode("th:block", Collections.singletonMap(key, value));
     }
 
-    private static void extractTitle(IModel titleModel, String contextKey, ITemplateContext context, String standardDialectPrefix, ModelBuilder modelBuilder) {
+    private static void extractTitle(IModel titleModel, boolean contentTitle, ITemplateContext context, String standardDialectPrefix, ModelBuilder modelBuilder) {
 
         // This title part already exists from a previous run, so do nothing
-        if (IContextExtensions.getAt(context, contextKey) != null) {
+        LayoutRenderState state = LayoutRenderState.of(context);
+        if ((contentTitle ? state.getContentTitle() : state.getLayoutTitle()) != null) {
             return;
         }
 
         if (IModelExtensions.asBoolean(titleModel)) {
             IProcessableElementTag titleTag = (IProcessableElementTag) IModelExtensions.first(titleModel);
+            IModel title;
 
             // Escapable title from a th:text attribute on the title tag
             if (titleTag.hasAttribute(standardDialectPrefix, StandardTextTagProcessor.ATTR_NAME)) {
-                IContextExtensions.putAt(context, contextKey, build(modelBuilder,
-                        "th:text", titleTag.getAttributeValue(standardDialectPrefix, StandardTextTagProcessor.ATTR_NAME)));
+                title = build(modelBuilder,
+                        "th:text", titleTag.getAttributeValue(standardDialectPrefix, StandardTextTagProcessor.ATTR_NAME));
             } // Unescaped title from a th:utext attribute on the title tag, or
             // whatever happens to be within the title tag
             else if (titleTag.hasAttribute(standardDialectPrefix, StandardUtextTagProcessor.ATTR_NAME)) {
-                IContextExtensions.putAt(context, contextKey, build(modelBuilder,
-                        "th:utext", titleTag.getAttributeValue(standardDialectPrefix, StandardUtextTagProcessor.ATTR_NAME)));
+                title = build(modelBuilder,
+                        "th:utext", titleTag.getAttributeValue(standardDialectPrefix, StandardUtextTagProcessor.ATTR_NAME));
 
             } else {
-                IModel titleChildrenModel = context.getModelFactory().createModel();
-                ChildModelIterator it = IModelExtensions.childModelIterator(titleModel);
-                if (it != null) {
-                    while (it.hasNext()) {
-                        IModel model = it.next();
-                        titleChildrenModel.addModel(model);
+                title = context.getModelFactory().createModel();
+                if (IModelExtensions.isElement(titleModel)) {
+                    for (int i = 1, end = titleModel.size() - 1; i < end; i++) {
+                        title.add(titleModel.get(i));
                     }
                 }
-                IContextExtensions.putAt(context, contextKey, titleChildrenModel);
             }
+            (contentTitle ? state.withContentTitle(title) : state.withLayoutTitle(title)).setOn(context);
         }
     }
 
@@ -128,8 +127,8 @@ public class HtmlTitleDecorator implements Decorator {
         // Set the title pattern to use on a new model, as well as the important
         // title result parts that we want to use on the pattern.
         if (titlePatternProcessor != null) {
-            extractTitle(sourceTitleModel, TitlePatternProcessor.CONTENT_TITLE_KEY, context, standardDialectPrefix, modelBuilder);
-            extractTitle(targetTitleModel, TitlePatternProcessor.LAYOUT_TITLE_KEY, context, standardDialectPrefix, modelBuilder);
+            extractTitle(sourceTitleModel, true, context, standardDialectPrefix, modelBuilder);
+            extractTitle(targetTitleModel, false, context, standardDialectPrefix, modelBuilder);
 
             resultTitle = modelBuilder.createNode("title",
                     Collections.singletonMap(titlePatternProcessor.getAttributeCompleteName(), titlePatternProcessor.getValue()));
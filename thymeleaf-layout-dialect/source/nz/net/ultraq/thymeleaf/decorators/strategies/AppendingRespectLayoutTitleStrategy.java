@@ -16,6 +16,7 @@
 package nz.net.ultraq.thymeleaf.decorators.strategies;
 
 import nz.net.ultraq.thymeleaf.decorators.SortingStrategy;
+import nz.net.ultraq.thymeleaf.internal.HeadChildModels;
 import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
 import nz.net.ultraq.thymeleaf.models.extensions.ITemplateEventExtensions;
 import org.thymeleaf.model.IModel;
@@ -69,7 +70,7 @@ public class AppendingRespectLayoutTitleStrategy implements SortingStrategy {
         }
 
         // Return the end of the <head> element
-        int positions = headModel.size();
-        return positions - (positions > 2 ? 2 : 1);
+        return HeadChildModels.endOf(headModel);
     }
+
 }
@@ -16,6 +16,7 @@
 package nz.net.ultraq.thymeleaf.decorators.strategies;
 
 import nz.net.ultraq.thymeleaf.decorators.SortingStrategy;
+import nz.net.ultraq.thymeleaf.internal.HeadChildModels;
 import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
 import nz.net.ultraq.thymeleaf.models.extensions.ITemplateEventExtensions;
 import org.thymeleaf.model.IModel;
@@ -55,8 +56,6 @@ public class AppendingStrategy implements SortingStrategy {
             return -1;
         }
 
-        int positions = headModel.size();
-
         // For backwards compatibility, match the location of any element at the
         // beginning of the <head> element.
         if (IModelExtensions.isElementOf(childModel, "title")) {
@@ -64,10 +63,10 @@ public class AppendingStrategy implements SortingStrategy {
             if (firstElementIndex != -1) {
                 return firstElementIndex;
             }
-            return positions > 2 ? 2 : 1;
+            return headModel.size() > 2 ? 2 : 1;
         }
 
-        return positions - (positions > 2 ? 2 : 1);
+        return HeadChildModels.endOf(headModel);
     }
 
 }
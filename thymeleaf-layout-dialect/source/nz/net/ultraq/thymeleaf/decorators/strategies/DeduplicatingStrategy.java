@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.decorators.strategies;
+
+import nz.net.ultraq.thymeleaf.internal.HeadChildModels;
+import org.thymeleaf.model.IModel;
+
+/**
+ * A version of the {@link AppendingRespectLayoutTitleStrategy} sorter that
+ * doesn't repeat resources already declared by the layout.
+ * <p>
+ * Elements are identified by the resource they declare: the {@code src} of a
+ * {@code <script>}, the {@code rel} and {@code href} of a {@code <link>}, and
+ * the {@code charset}, {@code name}, or {@code property} of a
+ * {@code <meta>}. A content element that declares the
+ * same resource as a layout element takes the place of the layout element, so
+ * that the content page can override things like
+ * {@code <meta name="description">} values, while all other elements are
+ * appended as normal. Only the first of several content elements declaring
+ * the same resource is kept.
+ *
+ * @author zhanhb
+ */
+public class DeduplicatingStrategy extends AppendingRespectLayoutTitleStrategy {
+
+    /**
+     * Returns {@code -1} for an element declaring the same resource as an
+     * element already in the {@code <head>}, so that it's discarded, otherwise
+     * does the same as {@link AppendingRespectLayoutTitleStrategy}.  The
+     * {@code <head>} model isn't changed: content elements only take the place
+     * of layout elements when the {@code <head>} decorator merges the whole
+     * {@code <head>}.
+     *
+     * @param headModel
+     * @param childModel
+     * @return Position to insert the child model into.
+     */
+    @Override
+    public int findPositionForModel(IModel headModel, IModel childModel) {
+        if (HeadChildModels.declaresResourceOf(headModel, childModel)) {
+            return -1;
+        }
+        return super.findPositionForModel(headModel, childModel);
+    }
+
+}
@@ -15,18 +15,11 @@
  */
 package nz.net.ultraq.thymeleaf.decorators.strategies;
 
-import java.util.ArrayList;
-import java.util.ListIterator;
 import nz.net.ultraq.thymeleaf.decorators.SortingStrategy;
-import nz.net.ultraq.thymeleaf.models.extensions.ChildModelIterator;
+import nz.net.ultraq.thymeleaf.internal.HeadChildModels;
 import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
 import nz.net.ultraq.thymeleaf.models.extensions.ITemplateEventExtensions;
-import org.thymeleaf.model.IComment;
-import org.thymeleaf.model.IElementTag;
 import org.thymeleaf.model.IModel;
-import org.thymeleaf.model.IOpenElementTag;
-import org.thymeleaf.model.IProcessableElementTag;
-import org.thymeleaf.model.ITemplateEvent;
 
 /**
  * The {@code <head>} merging strategy which groups like elements together.
@@ -50,45 +43,6 @@ import org.thymeleaf.model.ITemplateEvent;
 @Deprecated
 public class GroupingStrategy implements SortingStrategy {
 
-    /**
-     * Figure out the enum for the given model.
-     *
-     * @param model
-     * @return Matching enum to describe the model.
-     */
-    private static int findMatchingType(IModel model) {
-        final int COMMENT = 1;
-        final int META = 2;
-        final int SCRIPT = 3;
-        final int STYLE = 4;
-        final int STYLESHEET = 5;
-        final int OTHER = 6;
-
-        ITemplateEvent event = IModelExtensions.first(model);
-
-        if (event instanceof IComment) {
-            return COMMENT;
-        }
-        if (event instanceof IElementTag) {
-            String elementCompleteName = ((IElementTag) event).getElementCompleteName();
-            if (event instanceof IProcessableElementTag && "meta".equals(elementCompleteName)) {
-                return META;
-            }
-            if (event instanceof IOpenElementTag && "script".equals(elementCompleteName)) {
-                return SCRIPT;
-            }
-            if (event instanceof IOpenElementTag && "style".equals(elementCompleteName)) {
-                return STYLE;
-            }
-            if (event instanceof IProcessableElementTag && "link".equals(elementCompleteName)
-                    && "stylesheet".equals(((IProcessableElementTag) event).getAttributeValue("rel"))) {
-                return STYLESHEET;
-            }
-            return OTHER;
-        }
-        return 0;
-    }
-
     /**
      * Returns the index of the last set of elements that are of the same 'type'
      * as the content node. eg: groups scripts with scripts, stylesheets with
@@ -115,28 +69,7 @@ public class GroupingStrategy implements SortingStrategy {
             return headModel.size() > 2 ? 2 : 1;
         }
 
-        int type = findMatchingType(childModel);
-        ArrayList<IModel> list = new ArrayList<>(20);
-
-        ChildModelIterator it = IModelExtensions.childModelIterator(headModel);
-        if (it != null) {
-            while (it.hasNext()) {
-                list.add(it.next());
-            }
-        }
-
-        ListIterator<IModel> listIterator = list.listIterator(list.size());
-        while (listIterator.hasPrevious()) {
-            IModel headSubModel = listIterator.previous();
-            if (type == findMatchingType(headSubModel)) {
-                if (IModelExtensions.asBoolean(headModel)) {
-                    return IModelExtensions.findIndexOfModel(headModel, headSubModel) + headSubModel.size();
-                }
-                break;
-            }
-        }
-
-        return 1;
+        return HeadChildModels.findGroupPosition(headModel, childModel);
     }
 
 }
@@ -15,9 +15,13 @@
  */
 package nz.net.ultraq.thymeleaf.decorators.xml;
 
+import java.util.ArrayList;
+import java.util.List;
 import nz.net.ultraq.thymeleaf.decorators.Decorator;
 import nz.net.ultraq.thymeleaf.models.AttributeMerger;
 import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
+import nz.net.ultraq.thymeleaf.models.extensions.ITemplateEventExtensions;
+import nz.net.ultraq.thymeleaf.models.extensions.ModelEditor;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.model.ICloseElementTag;
 import org.thymeleaf.model.IComment;
@@ -27,6 +31,7 @@ import org.thymeleaf.model.IModelFactory;
 import org.thymeleaf.model.IOpenElementTag;
 import org.thymeleaf.model.IProcessableElementTag;
 import org.thymeleaf.model.ITemplateEvent;
+import org.thymeleaf.model.IText;
 
 /**
  * A decorator made to work over an XML document.
@@ -82,29 +87,51 @@ public class XmlDocumentDecorator implements Decorator {
                 rootModelFinder(sourceDocumentModel)
         );
 
-        // Copy comments outside of the root element, keeping whitespace copied to a minimum
+        // Copy comments outside of the root element, keeping whitespace copied to
+        // a minimum.  Each event is placed at the very start or end of the result
+        // as per insertWithWhitespace, but with all the insertions made in one go.
+        ModelEditor editor = new ModelEditor(resultDocumentModel);
+        int resultSize = resultDocumentModel.size();
+        ITemplateEvent leadingWhitespace = resultSize > 0 && ITemplateEventExtensions.isWhitespace(resultDocumentModel.get(0))
+                ? resultDocumentModel.get(0) : null;
+        List<ITemplateEvent> leadingEvents = new ArrayList<>(4);
         final int size = targetDocumentModel.size();
         for (int i = 0; i < size; i++) {
             ITemplateEvent event = targetDocumentModel.get(i);
             // Only copy doctypes if the source document doesn't already have one
             if (event instanceof IDocType) {
                 if (!documentContainsDocType(sourceDocumentModel)) {
-                    IModelExtensions.insertWithWhitespace(resultDocumentModel, 0, event, modelFactory);
+                    leadingEvents.add(event);
                 }
             } else if (event instanceof IComment) {
-                IModelExtensions.insertWithWhitespace(resultDocumentModel, 0, event, modelFactory);
+                leadingEvents.add(event);
             } else if (event instanceof IOpenElementTag) {
                 break;
             }
         }
+        for (int i = leadingEvents.size() - 1; i >= 0; i--) {
+            if (leadingWhitespace != null) {
+                editor.insert(0, leadingWhitespace).insert(0, leadingEvents.get(i));
+            } else {
+                editor.insert(0, leadingEvents.get(i)).insert(0, modelFactory.createText("\n"));
+            }
+        }
+        boolean empty = resultSize == 0 && leadingEvents.isEmpty();
         for (int i = size - 1; i >= 0; i--) {
             ITemplateEvent event = targetDocumentModel.get(i);
             if (event instanceof IComment) {
-                IModelExtensions.insertWithWhitespace(resultDocumentModel, resultDocumentModel.size(), event, modelFactory);
+                IText newLine = modelFactory.createText("\n");
+                if (empty) {
+                    editor.insert(resultSize, event).insert(resultSize, newLine);
+                    empty = false;
+                } else {
+                    editor.insert(resultSize, newLine).insert(resultSize, event).insert(resultSize, newLine);
+                }
             } else if (event instanceof ICloseElementTag) {
                 break;
             }
         }
+        editor.apply();
 
         return resultDocumentModel;
     }
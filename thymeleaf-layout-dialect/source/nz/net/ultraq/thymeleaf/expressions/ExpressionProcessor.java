@@ -18,6 +18,8 @@ package nz.net.ultraq.thymeleaf.expressions;
 import java.util.Collections;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import nz.net.ultraq.thymeleaf.internal.ConfigurationCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.thymeleaf.context.IExpressionContext;
@@ -37,6 +39,9 @@ public class ExpressionProcessor {
     private static final Logger logger = LoggerFactory.getLogger(ExpressionProcessor.class);
     @SuppressWarnings("CollectionWithoutInitialCapacity")
     private static final Set<String> oldFragmentExpressions = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private static final Pattern FRAGMENT_EXPRESSION_PATTERN = Pattern.compile("(?s)^~\\{.+\\}$");
+
+    private static final ConfigurationCache<String, FragmentExpression> FRAGMENT_EXPRESSIONS = new ConfigurationCache<>();
 
     private final IExpressionContext context;
 
@@ -67,12 +72,29 @@ public class ExpressionProcessor {
      * to Thymeleaf 3. (This is because Thymeleaf 3 currently does the same, but
      * expect this method to go away when Thymeleaf starts enforcing the new
      * fragment expression syntax itself.)
+     * <p>
+     * Parsed expressions are kept in a {@link ConfigurationCache}, so repeated
+     * uses of the same attribute value aren't parsed again. Values with
+     * preprocessing ({@code __...__}) depend on the context, and so are always
+     * parsed.
      *
      * @param expression
      * @return A fragment expression.
      */
     public FragmentExpression parseFragmentExpression(String expression) {
-        if (!StringUtils.isEmpty(expression) && !expression.matches("(?s)^~\\{.+\\}$")) {
+        if (expression == null || expression.contains("__")) {
+            return parseFragmentExpressionUncached(expression);
+        }
+        FragmentExpression fragmentExpression = FRAGMENT_EXPRESSIONS.get(context.getConfiguration(), expression);
+        if (fragmentExpression == null) {
+            fragmentExpression = FRAGMENT_EXPRESSIONS.put(context.getConfiguration(), expression,
+                    parseFragmentExpressionUncached(expression));
+        }
+        return fragmentExpression;
+    }
+
+    private FragmentExpression parseFragmentExpressionUncached(String expression) {
+        if (!StringUtils.isEmpty(expression) && !FRAGMENT_EXPRESSION_PATTERN.matcher(expression).matches()) {
             if (oldFragmentExpressions.add(expression)) {
                 logger.warn(
                         "Fragment expression \"{}\" is being wrapped as a Thymeleaf 3 fragment expression (~{...}) for backwards compatibility purposes.  "
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.fragments;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.thymeleaf.model.IModel;
+
+/**
+ * One level of the layout fragments available to a template, made up of the
+ * fragments found at that level together with a link to the collection of the
+ * level above it. Adding a level only costs as much as the fragments found at
+ * that level, with the lists of fragments combined across levels only being
+ * worked out for the names that are actually looked up.
+ * <p>
+ * Looking up a name gives the same list as the eager merge of the two levels
+ * always did: the fragments of this level, followed by those of the level
+ * above (reversed for anything other than decoration), or the very same list
+ * as the level above if this level has no fragments of that name. Lists are
+ * handed out as they are, so that a {@code layout:collect} consuming fragments
+ * from one is seen by every level sharing it. The collection itself can't be
+ * modified.
+ *
+ * @author zhanhb
+ */
+public final class FragmentCollection extends AbstractMap<String, List<IModel>> {
+
+    private final Map<String, List<IModel>> parent;
+    private final Map<String, List<IModel>> fragments;
+    private final boolean fromDecorator;
+    private final Map<String, List<IModel>> resolved = new HashMap<>();
+
+    /**
+     * Constructor, create a new level of fragments.
+     *
+     * @param parent The fragments of the level above, or {@code null} if this
+     * is the first level.
+     * @param fragments The fragments found at this level.
+     * @param fromDecorator Whether the level was created by
+     * {@code DecorateProcessor}, which keeps the order of combined fragments.
+     */
+    public FragmentCollection(@Nullable Map<String, List<IModel>> parent,
+            @Nonnull Map<String, List<IModel>> fragments, boolean fromDecorator) {
+        this.parent = parent;
+        this.fragments = fragments;
+        this.fromDecorator = fromDecorator;
+    }
+
+    @Override
+    public List<IModel> get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        String fragmentName = (String) key;
+        List<IModel> list = resolved.get(fragmentName);
+        if (list == null && !resolved.containsKey(fragmentName)) {
+            list = resolve(fragmentName);
+            resolved.put(fragmentName, list);
+        }
+        return list;
+    }
+
+    private List<IModel> resolve(String fragmentName) {
+        List<IModel> fragmentList = fragments.get(fragmentName);
+        List<IModel> parentList = parent != null ? parent.get(fragmentName) : null;
+        if (parentList == null) {
+            return fragmentList;
+        }
+        if (fragmentList == null || fragmentList.isEmpty()) {
+            return parentList;
+        }
+        List<IModel> list = new ArrayList<>(fragmentList.size() + parentList.size());
+        list.addAll(fragmentList);
+        list.addAll(parentList);
+        if (!fromDecorator) {
+            Collections.reverse(list);
+        }
+        return list;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Return every fragment name in this and the levels above, each with the
+     * list that {@link #get} gives for it. As this has to go through all the
+     * levels, it's best to stick to {@link #get} for looking up fragments.
+     *
+     * @return An unmodifiable set of all the fragment lists.
+     */
+    @Override
+    public Set<Entry<String, List<IModel>>> entrySet() {
+        Map<String, List<IModel>> all = new LinkedHashMap<>();
+        for (String fragmentName : fragments.keySet()) {
+            all.put(fragmentName, get(fragmentName));
+        }
+        if (parent != null) {
+            for (String fragmentName : parent.keySet()) {
+                all.put(fragmentName, get(fragmentName));
+            }
+        }
+        return Collections.unmodifiableMap(all).entrySet();
+    }
+
+}
@@ -15,11 +15,15 @@
  */
 package nz.net.ultraq.thymeleaf.fragments;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
+import javax.annotation.Nullable;
+import nz.net.ultraq.thymeleaf.models.extensions.ModelStructure;
+import nz.net.ultraq.thymeleaf.models.extensions.ModelView;
+import org.thymeleaf.engine.TemplateModel;
 import org.thymeleaf.model.IModel;
 import org.thymeleaf.model.IOpenElementTag;
 import org.thymeleaf.model.IProcessableElementTag;
@@ -51,15 +55,50 @@ public class FragmentFinder {
      * Find and return models for layout dialect fragments within the scope of
      * the given model, without delving into {@code layout:include} or
      * {@code layout:replace} elements, mapped by the name of each fragment.
+     * <p>
+     * The returned models are read-only views over a single copy of the events
+     * spanning all of the fragments, so that finding fragments that are never
+     * used costs next to nothing, and fragments nested within
+     * {@code layout:collect} elements share their events with the outer one.
+     * Use {@link IModel#cloneModel()} to get a fragment that can be modified.
      *
      * @param model Model whose events are to be searched.
      * @return Map of fragment names and their elements.
      */
     public Map<String, List<IModel>> findFragments(IModel model) {
+        return findFragments(model, null);
+    }
+
+    /**
+     * Find and return models for layout dialect fragments as with
+     * {@link #findFragments(IModel)}, skipping fragments that the given usage
+     * says won't be needed. Fragments within a {@code layout:collect} element
+     * that is kept are always kept, while those within one that is skipped are
+     * still looked for. If any part of the model that is kept
+     * would bring in other templates, nothing is skipped.
+     *
+     * @param model Model whose events are to be searched.
+     * @param usage The fragments that will be used, or {@code null} to keep
+     * all fragments.
+     * @return Map of fragment names and their elements.
+     */
+    public Map<String, List<IModel>> findFragments(IModel model, @Nullable FragmentUsage usage) {
+        if (usage != null && usage.isUsingAll()) {
+            usage = null;
+        }
         Map<String, List<IModel>> fragmentsMap = new LinkedHashMap<>();
+        ModelStructure structure = null;
+        List<String> names = null;
+        List<int[]> ranges = null;
+        int rangeEnd = 0;
+        int keptEnd = 0;
 
         for (int eventIndex = 0, size = model.size(); eventIndex < size;) {
             ITemplateEvent event = model.get(eventIndex);
+            if (usage != null && event instanceof IProcessableElementTag
+                    && usage.includesTemplates((IProcessableElementTag) event)) {
+                return findFragments(model, null);
+            }
             if (event instanceof IOpenElementTag) {
                 IProcessableElementTag tag = (IProcessableElementTag) event;
                 String fragmentName = tag.getAttributeValue(dialectPrefix, FragmentProcessor.PROCESSOR_NAME);
@@ -72,15 +111,29 @@ public class FragmentFinder {
                     }
                 }
                 if (!StringUtils.isEmpty(fragmentName)) {
-                    IModel fragment = IModelExtensions.getModel(model, eventIndex);
-                    List<IModel> list = fragmentsMap.get(fragmentName);
-                    if (list == null) {
-                        list = new LinkedList<>();
-                        fragmentsMap.put(fragmentName, list);
+                    if (structure == null) {
+                        structure = ModelStructure.of(model);
+                        names = new ArrayList<>();
+                        ranges = new ArrayList<>();
                     }
-                    list.add(fragment);
+                    int fragmentEnd = structure.nextSiblingIndex(eventIndex);
+                    if (usage != null && eventIndex >= keptEnd) {
+                        // Fragments used by the layout can still be nested within
+                        // an unused layout:define or layout:collect element
+                        if (!usage.isUsed(fragmentName)) {
+                            eventIndex = collect ? eventIndex + 1 : fragmentEnd;
+                            continue;
+                        }
+                        if (!collect && includesTemplates(model, eventIndex + 1, fragmentEnd, usage)) {
+                            return findFragments(model, null);
+                        }
+                        keptEnd = fragmentEnd;
+                    }
+                    names.add(fragmentName);
+                    ranges.add(new int[]{eventIndex, fragmentEnd});
+                    rangeEnd = Math.max(rangeEnd, fragmentEnd);
                     if (!collect) {
-                        eventIndex += fragment.size();
+                        eventIndex = fragmentEnd;
                         continue;
                     }
                 }
@@ -88,9 +141,47 @@ public class FragmentFinder {
             eventIndex++;
         }
 
+        if (names == null || names.isEmpty()) {
+            return fragmentsMap;
+        }
+
+        // Callers go on to modify the model they searched, so unless it's one
+        // of Thymeleaf's immutable template models, take a copy of just the
+        // events the fragments cover for the views to read from
+        IModel source = model;
+        int offset = 0;
+        if (!(model instanceof TemplateModel)) {
+            offset = ranges.get(0)[0];
+            source = model.getConfiguration().getModelFactory(model.getTemplateMode()).createModel();
+            for (int i = offset; i < rangeEnd; i++) {
+                source.add(model.get(i));
+            }
+        }
+
+        for (int i = 0, n = names.size(); i < n; i++) {
+            String fragmentName = names.get(i);
+            int[] range = ranges.get(i);
+            List<IModel> list = fragmentsMap.get(fragmentName);
+            if (list == null) {
+                list = new LinkedList<>();
+                fragmentsMap.put(fragmentName, list);
+            }
+            list.add(new ModelView(source, range[0] - offset, range[1] - range[0]));
+        }
+
         return fragmentsMap;
     }
 
+    private static boolean includesTemplates(IModel model, int start, int end, FragmentUsage usage) {
+        for (int i = start; i < end; i++) {
+            ITemplateEvent event = model.get(i);
+            if (event instanceof IProcessableElementTag && usage.includesTemplates((IProcessableElementTag) event)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public final String getDialectPrefix() {
         return dialectPrefix;
     }
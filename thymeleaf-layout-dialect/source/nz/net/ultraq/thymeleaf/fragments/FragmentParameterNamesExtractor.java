@@ -16,10 +16,14 @@
 package nz.net.ultraq.thymeleaf.fragments;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import nz.net.ultraq.thymeleaf.internal.ConfigurationCache;
+import org.thymeleaf.IEngineConfiguration;
 
 /**
  * Extracts just the parameter names from a fragment definition. Used for when
@@ -30,28 +34,66 @@ import javax.annotation.Nonnull;
  */
 public class FragmentParameterNamesExtractor {
 
+    private static final Pattern DEFINITION_PATTERN = Pattern.compile(".*?\\((.*)\\)");
+    private static final Pattern PARAMETER_PATTERN = Pattern.compile("([^=]+)=?.*");
+
+    private static final ConfigurationCache<String, List<String>> PARAMETER_NAMES = new ConfigurationCache<>();
+
+    private final IEngineConfiguration configuration;
+
+    /**
+     * Constructor, create an extractor that works out the names of a
+     * definition every time it is asked for them.
+     */
+    public FragmentParameterNamesExtractor() {
+        this.configuration = null;
+    }
+
+    /**
+     * Constructor, create an extractor that keeps the names it has worked out
+     * in a {@link ConfigurationCache}, so that later extractions for the same
+     * definition don't parse it again.
+     *
+     * @param configuration
+     */
+    public FragmentParameterNamesExtractor(@Nullable IEngineConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
     /**
      * Returns a list of parameter names for the given fragment definition.
      *
      * @param fragmentDefinition
-     * @return A list of the named parameters, in the order they are defined.
+     * @return A new list of the named parameters, in the order they are
+     * defined.
      */
     @Nonnull
     public List<String> extract(@Nonnull String fragmentDefinition) {
-        Matcher matcher = Pattern.compile(".*?\\((.*)\\)").matcher(fragmentDefinition);
+        if (configuration == null) {
+            return new ArrayList<>(parse(fragmentDefinition));
+        }
+        List<String> names = PARAMETER_NAMES.get(configuration, fragmentDefinition);
+        if (names == null) {
+            names = PARAMETER_NAMES.put(configuration, fragmentDefinition, parse(fragmentDefinition));
+        }
+        return new ArrayList<>(names);
+    }
+
+    private static List<String> parse(String fragmentDefinition) {
+        Matcher matcher = DEFINITION_PATTERN.matcher(fragmentDefinition);
         if (matcher.find()) {
             String[] split = matcher.group(1).split(",");
             List<String> result = new ArrayList<>(split.length);
             for (String string : split) {
-                Matcher matcher1 = Pattern.compile("([^=]+)=?.*").matcher(string);
+                Matcher matcher1 = PARAMETER_PATTERN.matcher(string);
                 if (!matcher1.find()) {
                     throw new IndexOutOfBoundsException("index is out of range 0..-1 (index = 0)");
                 }
                 result.add(matcher1.group(1).trim());
             }
-            return result;
+            return Collections.unmodifiableList(result);
         } else {
-            return new ArrayList<>(0);
+            return Collections.emptyList();
         }
     }
 
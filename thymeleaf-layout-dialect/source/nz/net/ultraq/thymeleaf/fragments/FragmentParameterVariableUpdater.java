@@ -62,7 +62,7 @@ public class FragmentParameterVariableUpdater {
         // When fragment parameters aren't named, derive the name from the fragment definition
         if (fragmentExpression.hasSyntheticParameters()) {
             String fragmentDefinition = ((IProcessableElementTag) IModelExtensions.first(fragment)).getAttributeValue(dialectPrefix, FragmentProcessor.PROCESSOR_NAME);
-            List<String> parameterNames = new FragmentParameterNamesExtractor().extract(fragmentDefinition);
+            List<String> parameterNames = new FragmentParameterNamesExtractor(context.getConfiguration()).extract(fragmentDefinition);
             AssignationSequence parameters = fragmentExpression.getParameters();
             if (parameters != null) {
                 int index = 0;
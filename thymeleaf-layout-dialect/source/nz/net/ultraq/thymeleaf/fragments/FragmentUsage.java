@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.fragments;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+import nz.net.ultraq.thymeleaf.decorators.DecorateProcessor;
+import nz.net.ultraq.thymeleaf.decorators.DecoratorProcessor;
+import nz.net.ultraq.thymeleaf.includes.IncludeProcessor;
+import nz.net.ultraq.thymeleaf.includes.InsertProcessor;
+import nz.net.ultraq.thymeleaf.includes.ReplaceProcessor;
+import nz.net.ultraq.thymeleaf.internal.IdentityCache;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+import org.thymeleaf.util.StringUtils;
+
+/**
+ * The names of the fragments that a layout consumes through its own
+ * {@code layout:fragment} and {@code layout:collect} elements, so that content
+ * fragments the layout will never use needn't be collected.
+ * <p>
+ * The names can only be known when nothing else gets to look up fragments
+ * during decoration, so a layout that decorates another layout, or brings in
+ * other templates through any of the Thymeleaf or layout dialect inclusion
+ * attributes, is treated as using every fragment. The same goes for content
+ * that would bring in other templates, see {@link #includesTemplates}.
+ * <p>
+ * Usages of cacheable layouts are kept for as long as Thymeleaf's template
+ * cache holds on to the parsed template.
+ *
+ * @author zhanhb
+ */
+public final class FragmentUsage {
+
+    private static final IdentityCache<TemplateModel, ConcurrentMap<List<String>, FragmentUsage>> USAGES
+            = new IdentityCache<>();
+
+    private static final String[] LAYOUT_INCLUSION_NAMES = {
+        InsertProcessor.PROCESSOR_NAME,
+        ReplaceProcessor.PROCESSOR_NAME,
+        IncludeProcessor.PROCESSOR_NAME,
+        DecorateProcessor.PROCESSOR_NAME,
+        DecoratorProcessor.PROCESSOR_NAME
+    };
+
+    private static final String[] STANDARD_INCLUSION_NAMES = {
+        "insert",
+        "replace",
+        "include",
+        "substituteby"
+    };
+
+    /**
+     * Return the fragment usage of the given layout template.
+     *
+     * @param layout
+     * @param dialectPrefix Prefix configured for the layout dialect.
+     * @param standardDialectPrefix Prefix configured for Thymeleaf's standard
+     * dialect, or {@code null} if it isn't in use.
+     * @return Fragment usage of the layout.
+     */
+    public static FragmentUsage forTemplate(TemplateModel layout, String dialectPrefix,
+            @Nullable String standardDialectPrefix) {
+        if (!layout.getTemplateData().getValidity().isCacheable()) {
+            return new FragmentUsage(layout, dialectPrefix, standardDialectPrefix);
+        }
+        ConcurrentMap<List<String>, FragmentUsage> usages = USAGES.getOrCreate(layout,
+                () -> new ConcurrentHashMap<List<String>, FragmentUsage>(2));
+        List<String> key = Arrays.asList(dialectPrefix, standardDialectPrefix);
+        FragmentUsage usage = usages.get(key);
+        if (usage == null) {
+            usage = new FragmentUsage(layout, dialectPrefix, standardDialectPrefix);
+            FragmentUsage existing = usages.putIfAbsent(key, usage);
+            if (existing != null) {
+                usage = existing;
+            }
+        }
+        return usage;
+    }
+
+    private final String dialectPrefix;
+    private final String standardDialectPrefix;
+    private final Set<String> names;
+
+    private FragmentUsage(IModel layout, String dialectPrefix, @Nullable String standardDialectPrefix) {
+        this.dialectPrefix = dialectPrefix;
+        this.standardDialectPrefix = standardDialectPrefix;
+
+        Set<String> usedNames = new HashSet<>();
+        for (int i = 0, size = layout.size(); i < size; i++) {
+            ITemplateEvent event = layout.get(i);
+            if (!(event instanceof IProcessableElementTag)) {
+                continue;
+            }
+            IProcessableElementTag tag = (IProcessableElementTag) event;
+            if (includesTemplates(tag)) {
+                usedNames = null;
+                break;
+            }
+            String fragmentName = tag.getAttributeValue(dialectPrefix, FragmentProcessor.PROCESSOR_NAME);
+            if (!StringUtils.isEmpty(fragmentName)) {
+                usedNames.add(fragmentName);
+            }
+            fragmentName = tag.getAttributeValue(dialectPrefix, CollectFragmentProcessor.PROCESSOR_COLLECT);
+            if (!StringUtils.isEmpty(fragmentName)) {
+                usedNames.add(fragmentName);
+            }
+        }
+        names = usedNames;
+    }
+
+    /**
+     * Return whether the given element brings in other templates, which could
+     * go on to use any fragment.
+     *
+     * @param tag
+     * @return {@code true} if the element has any of the Thymeleaf or layout
+     * dialect inclusion or decoration attributes.
+     */
+    public boolean includesTemplates(IProcessableElementTag tag) {
+        for (String name : LAYOUT_INCLUSION_NAMES) {
+            if (tag.hasAttribute(dialectPrefix, name)) {
+                return true;
+            }
+        }
+        if (standardDialectPrefix != null) {
+            for (String name : STANDARD_INCLUSION_NAMES) {
+                if (tag.hasAttribute(standardDialectPrefix, name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return whether the layout uses every fragment, either because it brings
+     * in other templates or because there's no way to tell.
+     *
+     * @return {@code true} if fragments can't be skipped.
+     */
+    public boolean isUsingAll() {
+        return names == null;
+    }
+
+    /**
+     * Return whether the layout uses fragments of the given name.
+     *
+     * @param fragmentName
+     * @return {@code true} if fragments of the name should be collected.
+     */
+    public boolean isUsed(String fragmentName) {
+        return names == null || names.contains(fragmentName);
+    }
+
+}
@@ -15,11 +15,12 @@
  */
 package nz.net.ultraq.thymeleaf.fragments.extensions;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
+import nz.net.ultraq.thymeleaf.context.LayoutRenderState;
+import nz.net.ultraq.thymeleaf.fragments.FragmentCollection;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.model.IModel;
 import org.thymeleaf.processor.element.IElementModelStructureHandler;
@@ -33,6 +34,12 @@ import org.thymeleaf.processor.element.IElementModelStructureHandler;
  */
 public class FragmentExtensions {
 
+    /**
+     * @deprecated The fragment collection is now kept in the
+     * {@link LayoutRenderState}. It is still set under this name for
+     * compatibility, but this will be removed in a future version.
+     */
+    @Deprecated
     public static final String FRAGMENT_COLLECTION_KEY = "LayoutDialect::FragmentCollection";
 
     /**
@@ -44,6 +51,12 @@ public class FragmentExtensions {
      */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
     public static Map<String, List<IModel>> getFragmentCollection(ITemplateContext self, boolean fromDecorator) {
+        Map<String, List<IModel>> fragmentCollection = findFragmentCollection(self, fromDecorator);
+        return fragmentCollection != null ? fragmentCollection : new LinkedHashMap<>();
+    }
+
+    @Nullable
+    private static Map<String, List<IModel>> findFragmentCollection(ITemplateContext self, boolean fromDecorator) {
 
         // If the template stack contains only 1 template and we've been called from
         // the decorator, then always return a new fragment collection.  This seems
@@ -52,17 +65,17 @@ public class FragmentExtensions {
         // older collection from an already-used context.
         // See: https://github.com/ultraq/thymeleaf-layout-dialect/issues/189
         if (self.getTemplateStack().size() == 1 && fromDecorator) {
-            return new LinkedHashMap<>();
+            return null;
         }
 
-        @SuppressWarnings("unchecked")
-        Map<String, List<IModel>> fragmentCollection = (Map<String, List<IModel>>) self.getVariable(FRAGMENT_COLLECTION_KEY);
-        return fragmentCollection != null ? fragmentCollection : new LinkedHashMap<>();
+        return LayoutRenderState.of(self).getFragmentCollection();
     }
 
     /**
      * Set a fragment cache to contain any existing fragments, plus the given
-     * new fragments, with the same scope as setting a local variable.
+     * new fragments, with the same scope as setting a local variable. The new
+     * fragments are added as a level over the existing ones rather than copied
+     * in with them, see {@link FragmentCollection}.
      *
      * @param self
      * @param context
@@ -73,25 +86,9 @@ public class FragmentExtensions {
      */
     public static void setLocalFragmentCollection(IElementModelStructureHandler self, ITemplateContext context,
             Map<String, List<IModel>> fragments, boolean fromDecorator) {
-        Map<String, List<IModel>> old = getFragmentCollection(context, fromDecorator);
-        for (Map.Entry<String, List<IModel>> entry : old.entrySet()) {
-            String fragmentName = entry.getKey();
-            List<IModel> fragmentList = entry.getValue();
-
-            List<IModel> oldList = fragments.get(fragmentName);
-            if (oldList == null || oldList.isEmpty()) {
-                fragments.put(fragmentName, fragmentList);
-            } else {
-                List<IModel> list = new ArrayList<>(oldList.size() + fragmentList.size());
-                list.addAll(oldList);
-                list.addAll(fragmentList);
-                if (!fromDecorator) {
-                    Collections.reverse(list);
-                }
-                fragments.put(fragmentName, list);
-            }
-        }
-        self.setLocalVariable(FRAGMENT_COLLECTION_KEY, fragments);
+        LayoutRenderState.of(context)
+                .withFragmentCollection(new FragmentCollection(findFragmentCollection(context, fromDecorator), fragments, fromDecorator))
+                .setLocal(self);
     }
 
     public static Map<String, List<IModel>> getFragmentCollection(ITemplateContext self) {
@@ -23,14 +23,15 @@ import nz.net.ultraq.thymeleaf.fragments.FragmentFinder;
 import nz.net.ultraq.thymeleaf.fragments.FragmentParameterNamesExtractor;
 import nz.net.ultraq.thymeleaf.fragments.FragmentProcessor;
 import nz.net.ultraq.thymeleaf.fragments.extensions.FragmentExtensions;
+import nz.net.ultraq.thymeleaf.models.TemplateFragment;
 import nz.net.ultraq.thymeleaf.models.TemplateModelFinder;
 import nz.net.ultraq.thymeleaf.models.extensions.ChildModelIterator;
 import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
+import nz.net.ultraq.thymeleaf.models.extensions.ModelEditor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.engine.AttributeName;
-import org.thymeleaf.engine.TemplateModel;
 import org.thymeleaf.model.IModel;
 import org.thymeleaf.model.IProcessableElementTag;
 import org.thymeleaf.processor.element.AbstractAttributeModelProcessor;
@@ -91,7 +92,7 @@ public class IncludeProcessor extends AbstractAttributeModelProcessor {
         }
         // Locate the page and fragment for inclusion
         FragmentExpression fragmentExpression = new ExpressionProcessor(context).parseFragmentExpression(attributeValue);
-        TemplateModel fragmentForInclusion = new TemplateModelFinder(context).findFragment(fragmentExpression);
+        TemplateFragment fragmentForInclusion = new TemplateModelFinder(context).findIndexedFragment(fragmentExpression);
 
         // Gather all fragment parts within the include element, scoping them to this element
         Map<String, List<IModel>> includeFragments = new FragmentFinder(getDialectPrefix()).findFragments(model);
@@ -103,25 +104,29 @@ public class IncludeProcessor extends AbstractAttributeModelProcessor {
 
         // Replace the children of this element with the children of the included page fragment
         IModel fragmentForInclusionUse = fragmentForInclusion.cloneModel();
-        IModelExtensions.removeChildren(model);
+        ModelEditor editor = new ModelEditor(model);
+        if (IModelExtensions.isElement(model)) {
+            editor.remove(1, model.size() - 2);
+        }
 
         // Retrieving a model for a template can come with whitspace, so trim those
         // from the model so that we can use the child event iterator.
         IModelExtensions.trim(fragmentForInclusionUse);
 
-        ChildModelIterator it = IModelExtensions.childModelIterator(fragmentForInclusionUse);
+        ChildModelIterator it = IModelExtensions.childModelViewIterator(fragmentForInclusionUse);
         if (it != null) {
             while (it.hasNext()) {
                 IModel fragmentChildModel = it.next();
-                model.insertModel(model.size() - 1, fragmentChildModel);
+                editor.insertModel(model.size() - 1, fragmentChildModel);
             }
         }
+        editor.apply();
 
         // When fragment parameters aren't named, derive the name from the fragment definition
         // TODO: Common code across all the inclusion processors
         if (fragmentExpression.hasSyntheticParameters()) {
             String fragmentDefinition = ((IProcessableElementTag) IModelExtensions.first(fragmentForInclusionUse)).getAttributeValue(getDialectPrefix(), FragmentProcessor.PROCESSOR_NAME);
-            List<String> parameterNames = new FragmentParameterNamesExtractor().extract(fragmentDefinition);
+            List<String> parameterNames = new FragmentParameterNamesExtractor(context.getConfiguration()).extract(fragmentDefinition);
 
             AssignationSequence parameters = fragmentExpression.getParameters();
             if (parameters != null) {
@@ -21,11 +21,12 @@ import nz.net.ultraq.thymeleaf.expressions.ExpressionProcessor;
 import nz.net.ultraq.thymeleaf.fragments.FragmentFinder;
 import nz.net.ultraq.thymeleaf.fragments.FragmentParameterVariableUpdater;
 import nz.net.ultraq.thymeleaf.fragments.extensions.FragmentExtensions;
+import nz.net.ultraq.thymeleaf.models.TemplateFragment;
 import nz.net.ultraq.thymeleaf.models.TemplateModelFinder;
 import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
+import nz.net.ultraq.thymeleaf.models.extensions.ModelEditor;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.engine.AttributeName;
-import org.thymeleaf.engine.TemplateModel;
 import org.thymeleaf.model.IModel;
 import org.thymeleaf.processor.element.AbstractAttributeModelProcessor;
 import org.thymeleaf.processor.element.IElementModelStructureHandler;
@@ -71,7 +72,7 @@ public class InsertProcessor extends AbstractAttributeModelProcessor {
 
         // Locate the page and fragment to insert
         FragmentExpression fragmentExpression = new ExpressionProcessor(context).parseFragmentExpression(attributeValue);
-        TemplateModel fragmentForInsertion = new TemplateModelFinder(context).findFragment(fragmentExpression);
+        TemplateFragment fragmentForInsertion = new TemplateModelFinder(context).findIndexedFragment(fragmentExpression);
 
         // Gather all fragment parts within this element, scoping them to this element
         Map<String, List<IModel>> includeFragments = new FragmentFinder(getDialectPrefix()).findFragments(model);
@@ -83,8 +84,11 @@ public class InsertProcessor extends AbstractAttributeModelProcessor {
 
         // Replace the children of this element with those of the to-be-inserted page fragment
         IModel fragmentForInsertionUse = fragmentForInsertion.cloneModel();
-        IModelExtensions.removeChildren(model);
-        model.insertModel(1, fragmentForInsertionUse);
+        ModelEditor editor = new ModelEditor(model);
+        if (IModelExtensions.isElement(model)) {
+            editor.remove(1, model.size() - 2);
+        }
+        editor.insertModel(1, fragmentForInsertionUse).apply();
 
         // Scope variables in fragment definition to current fragment
         new FragmentParameterVariableUpdater(getDialectPrefix(), context)
@@ -21,11 +21,11 @@ import nz.net.ultraq.thymeleaf.expressions.ExpressionProcessor;
 import nz.net.ultraq.thymeleaf.fragments.FragmentFinder;
 import nz.net.ultraq.thymeleaf.fragments.FragmentParameterVariableUpdater;
 import nz.net.ultraq.thymeleaf.fragments.extensions.FragmentExtensions;
+import nz.net.ultraq.thymeleaf.models.TemplateFragment;
 import nz.net.ultraq.thymeleaf.models.TemplateModelFinder;
 import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.engine.AttributeName;
-import org.thymeleaf.engine.TemplateModel;
 import org.thymeleaf.model.IModel;
 import org.thymeleaf.processor.element.AbstractAttributeModelProcessor;
 import org.thymeleaf.processor.element.IElementModelStructureHandler;
@@ -71,7 +71,7 @@ public class ReplaceProcessor extends AbstractAttributeModelProcessor {
 
         // Locate the page and fragment to use for replacement
         FragmentExpression fragmentExpression = new ExpressionProcessor(context).parseFragmentExpression(attributeValue);
-        TemplateModel fragmentForReplacement = new TemplateModelFinder(context).findFragment(fragmentExpression);
+        TemplateFragment fragmentForReplacement = new TemplateModelFinder(context).findIndexedFragment(fragmentExpression);
 
         // Gather all fragment parts within the include element, scoping them to this element
         Map<String, List<IModel>> includeFragments = new FragmentFinder(getDialectPrefix()).findFragments(model);
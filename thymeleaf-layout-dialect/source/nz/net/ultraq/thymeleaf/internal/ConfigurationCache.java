@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.cache.ICacheManager;
+
+/**
+ * A cache of values worked out from template text, like parsed expressions and
+ * patterns, kept separately for each engine configuration.
+ * <p>
+ * This is the one policy for all such values in the dialect: they are kept
+ * for as long as their configuration is (see {@link IdentityCache}), not kept
+ * at all if the configuration has Thymeleaf's own expression cache turned off,
+ * and only the first {@link #MAX_ENTRIES} of them are kept for each
+ * configuration. That text normally comes straight from templates, so the
+ * limit is only reached if it's being built dynamically, past which new values
+ * are worked out for each use.
+ *
+ * @param <K> Type of the text the values are worked out from.
+ * @param <V> Type of the cached values.
+ * @author zhanhb
+ */
+public final class ConfigurationCache<K, V> {
+
+    /**
+     * Most values to keep for each configuration.
+     */
+    public static final int MAX_ENTRIES = 1024;
+
+    private final IdentityCache<IEngineConfiguration, ConcurrentMap<K, V>> entries = new IdentityCache<>();
+
+    /**
+     * Return the value cached for the given key in the given configuration.
+     *
+     * @param configuration
+     * @param key
+     * @return The cached value, or {@code null} if there isn't one.
+     */
+    @Nullable
+    public V get(@Nonnull IEngineConfiguration configuration, @Nonnull K key) {
+        ConcurrentMap<K, V> values = getValues(configuration);
+        return values != null ? values.get(key) : null;
+    }
+
+    /**
+     * Cache a value for the given key in the given configuration, unless the
+     * configuration doesn't cache values, has reached its limit, or another
+     * thread got there first.
+     *
+     * @param configuration
+     * @param key
+     * @param value
+     * @return The value now cached for the key, which is the existing one if
+     * there was one, or the given value otherwise.
+     */
+    @Nonnull
+    public V put(@Nonnull IEngineConfiguration configuration, @Nonnull K key, @Nonnull V value) {
+        ConcurrentMap<K, V> values = getValues(configuration);
+        if (values == null || values.size() >= MAX_ENTRIES) {
+            return value;
+        }
+        V existing = values.putIfAbsent(key, value);
+        return existing != null ? existing : value;
+    }
+
+    @Nullable
+    private ConcurrentMap<K, V> getValues(IEngineConfiguration configuration) {
+        ICacheManager cacheManager = configuration.getCacheManager();
+        if (cacheManager == null || cacheManager.getExpressionCache() == null) {
+            return null;
+        }
+        return entries.getOrCreate(configuration, () -> new ConcurrentHashMap<K, V>());
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.internal;
+
+import nz.net.ultraq.thymeleaf.decorators.DecorationPhase;
+import nz.net.ultraq.thymeleaf.decorators.LayoutDialectListener;
+
+/**
+ * Times the phases of one decoration for a {@link LayoutDialectListener}. Only
+ * created when there is a listener, callers skip all timing when they have no
+ * timer.
+ *
+ * @author zhanhb
+ */
+public final class DecorationTimer {
+
+    private final LayoutDialectListener listener;
+    private final String contentTemplate;
+    private String layoutTemplate;
+
+    /**
+     * Constructor, time the decoration of the given template.
+     *
+     * @param listener
+     * @param contentTemplate
+     */
+    public DecorationTimer(LayoutDialectListener listener, String contentTemplate) {
+        this.listener = listener;
+        this.contentTemplate = contentTemplate;
+    }
+
+    /**
+     * Set the name of the layout template, once it has been found.
+     *
+     * @param layoutTemplate
+     */
+    public void setLayoutTemplate(String layoutTemplate) {
+        this.layoutTemplate = layoutTemplate;
+    }
+
+    /**
+     * Report the start of a phase.
+     *
+     * @param phase
+     * @return The start time of the phase, to pass to {@link #end}.
+     */
+    public long begin(DecorationPhase phase) {
+        listener.phaseStarted(phase, contentTemplate, layoutTemplate);
+        return System.nanoTime();
+    }
+
+    /**
+     * Report the end of a phase.
+     *
+     * @param phase
+     * @param startTime
+     * @param size
+     */
+    public void end(DecorationPhase phase, long startTime, int size) {
+        long duration = System.nanoTime() - startTime;
+        listener.phaseEnded(phase, contentTemplate, layoutTemplate, duration, size);
+    }
+
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import nz.net.ultraq.thymeleaf.decorators.SortingStrategy;
+import nz.net.ultraq.thymeleaf.decorators.strategies.AppendingRespectLayoutTitleStrategy;
+import nz.net.ultraq.thymeleaf.decorators.strategies.AppendingStrategy;
+import nz.net.ultraq.thymeleaf.decorators.strategies.DeduplicatingStrategy;
+import nz.net.ultraq.thymeleaf.decorators.strategies.GroupingRespectLayoutTitleStrategy;
+import nz.net.ultraq.thymeleaf.decorators.strategies.GroupingStrategy;
+import nz.net.ultraq.thymeleaf.models.extensions.ChildModelIterator;
+import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
+import nz.net.ultraq.thymeleaf.models.extensions.ITemplateEventExtensions;
+import org.thymeleaf.model.ICloseElementTag;
+import org.thymeleaf.model.IComment;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelFactory;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+
+/**
+ * Single-pass implementations of the {@code <head>} merges done by the
+ * built-in sorting strategies, reproducing the results of inserting each
+ * child with {@link IModelExtensions#insertModelWithWhitespace} at the
+ * position the strategy would have returned for it.  The exception is the
+ * {@link DeduplicatingStrategy}, whose content elements also take the place of
+ * any layout elements declaring the same resource.
+ *
+ * @author zhanhb
+ */
+public final class HeadChildModels {
+
+    /**
+     * Return whether a sorting strategy is one of the built-in ones, and not a
+     * subclass of one.  The built-in strategies neither modify nor keep the
+     * models given to them, so can be given read-only views.
+     *
+     * @param strategy
+     * @return {@code true} for the built-in strategies.
+     */
+    @SuppressWarnings("deprecation")
+    public static boolean isBuiltIn(SortingStrategy strategy) {
+        Class<?> strategyClass = strategy.getClass();
+        return strategyClass == AppendingStrategy.class
+                || strategyClass == AppendingRespectLayoutTitleStrategy.class
+                || strategyClass == GroupingStrategy.class
+                || strategyClass == GroupingRespectLayoutTitleStrategy.class
+                || strategyClass == DeduplicatingStrategy.class;
+    }
+
+    /**
+     * Merge the children of a source {@code <head>} into a target
+     * {@code <head>} all at once, for any of the built-in sorting strategies.
+     * Subclasses of those strategies aren't merged this way, as they may have
+     * changed where elements go.
+     * <p>
+     * The appending and deduplicating strategies can always be merged this
+     * way.  The grouping strategies place each child after the first event in
+     * the {@code <head>} equal to the start of the last child of the same type,
+     * which this can only reproduce when that position is between two
+     * children.  So the grouping strategies aren't merged this way for a
+     * {@code <head>} where: a child of the same type is repeated inside another
+     * child, a child is text rather than an element or comment, or a child
+     * isn't a whole element.
+     *
+     * @param strategy
+     * @param headModel Model of the target {@code <head>} element.
+     * @param childModels Immediate children of the source {@code <head>} to
+     * merge in, including whitespace but not its {@code <title>}, which is
+     * merged separately.
+     * @param modelFactory
+     * @return A new {@code <head>} model with the merged children, or
+     * {@code null} if the children have to be merged one at a time.
+     */
+    @SuppressWarnings("deprecation")
+    public static IModel merge(SortingStrategy strategy, IModel headModel, List<IModel> childModels,
+            IModelFactory modelFactory) {
+        if (!isBuiltIn(strategy)) {
+            return null;
+        }
+        Class<?> strategyClass = strategy.getClass();
+        boolean deduplicating = strategyClass == DeduplicatingStrategy.class;
+        boolean appending = strategyClass == AppendingStrategy.class
+                || strategyClass == AppendingRespectLayoutTitleStrategy.class;
+
+        ChildModelIterator it = IModelExtensions.childModelViewIterator(headModel);
+        if (it == null) {
+            return null;
+        }
+        List<IModel> headChildModels = new ArrayList<>();
+        while (it.hasNext()) {
+            headChildModels.add(it.next());
+        }
+        List<IModel> mergedModels = deduplicating ? deduplicate(headChildModels, childModels, modelFactory)
+                : appending ? append(headChildModels, childModels, modelFactory)
+                : group(headChildModels, childModels, modelFactory);
+        if (mergedModels == null) {
+            return null;
+        }
+
+        IModel mergedHeadModel = modelFactory.createModel(IModelExtensions.first(headModel));
+        for (IModel model : mergedModels) {
+            for (int i = 0, size = model.size(); i < size; i++) {
+                mergedHeadModel.add(model.get(i));
+            }
+        }
+        mergedHeadModel.add(IModelExtensions.last(headModel));
+        return mergedHeadModel;
+    }
+
+    /**
+     * Return the position at the end of a {@code <head>} model where the
+     * appending strategies insert children: in front of any trailing
+     * whitespace, otherwise in front of the closing tag.
+     *
+     * @param headModel
+     * @return Position to insert an appended child.
+     */
+    public static int endOf(IModel headModel) {
+        int end = headModel.size() - 1;
+        return end > 1 && ITemplateEventExtensions.isWhitespace(headModel.get(end - 1)) ? end - 1 : end;
+    }
+
+    /**
+     * Return the position where the grouping strategies insert a child: after
+     * the last child of the {@code <head>} of the same type, or at the start of
+     * the {@code <head>} if there isn't one.  As it always has been, the
+     * position is that of the first event in the {@code <head>} equal to the
+     * start of that last child, plus the size of the last child.
+     *
+     * @param headModel
+     * @param childModel
+     * @return Position of the end of the matching element group.
+     */
+    public static int findGroupPosition(IModel headModel, IModel childModel) {
+        HeadElementIndex index = new HeadElementIndex(headModel);
+        int child = index.findLastChildOfType(HeadElementIndex.classify(IModelExtensions.first(childModel)));
+        if (child != -1) {
+            ITemplateEvent headSubModelEvent = headModel.get(index.getPosition(child));
+            return IModelExtensions.findIndexOf(headModel, event -> ITemplateEventExtensions.equals(event, headSubModelEvent))
+                    + index.getSize(child);
+        }
+        return 1;
+    }
+
+    /**
+     * Return whether a child of the {@code <head>} already declares the same
+     * resource as the given model, as the deduplicating strategy identifies
+     * resources.
+     *
+     * @param headModel
+     * @param childModel
+     * @return {@code true} if the resource of the child model is already in
+     * the {@code <head>}.
+     */
+    public static boolean declaresResourceOf(IModel headModel, IModel childModel) {
+        String resource = HeadElementIndex.resourceOf(IModelExtensions.first(childModel));
+        return resource != null && new HeadElementIndex(headModel).findChildDeclaring(resource) != -1;
+    }
+
+    /**
+     * Merge for the appending strategies, where every child goes to the end of
+     * the {@code <head>}.
+     *
+     * @param headChildModels
+     * @param childModels
+     * @param modelFactory
+     * @return Merged children.
+     */
+    private static List<IModel> append(List<IModel> headChildModels, List<IModel> childModels, IModelFactory modelFactory) {
+        List<IModel> merged = new ArrayList<>(headChildModels.size() + childModels.size() * 2 + 1);
+        merged.addAll(headChildModels);
+
+        // Each child goes in front of the trailing whitespace, with a copy of that
+        // whitespace in front of it.  Without trailing whitespace the first child
+        // is surrounded by new whitespace, which then acts as the trailing
+        // whitespace for the rest.
+        int count = merged.size();
+        IModel whitespace = count > 0 && IModelExtensions.isWhitespace(merged.get(count - 1))
+                ? merged.get(count - 1)
+                : null;
+        for (IModel childModel : childModels) {
+            if (IModelExtensions.isWhitespace(childModel)) {
+                continue;
+            }
+            if (whitespace == null) {
+                whitespace = modelFactory.createModel(modelFactory.createText("\n\t"));
+                merged.add(whitespace);
+            }
+            merged.add(childModel);
+            merged.add(whitespace);
+        }
+        return merged;
+    }
+
+    /**
+     * Merge for the deduplicating strategy, where content elements take the
+     * place of layout elements declaring the same resource, only the first of
+     * several content elements declaring the same resource is kept, and every
+     * other child goes to the end of the {@code <head>}.
+     *
+     * @param headChildModels
+     * @param childModels
+     * @param modelFactory
+     * @return Merged children.
+     */
+    private static List<IModel> deduplicate(List<IModel> headChildModels, List<IModel> childModels,
+            IModelFactory modelFactory) {
+        List<IModel> headModels = new ArrayList<>(headChildModels);
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0, size = headModels.size(); i < size; i++) {
+            String resource = HeadElementIndex.resourceOf(IModelExtensions.first(headModels.get(i)));
+            if (resource != null && !positions.containsKey(resource)) {
+                positions.put(resource, i);
+            }
+        }
+
+        // Content elements already in the layout replace the layout ones, while
+        // content elements already in the content are dropped
+        List<IModel> appendedModels = new ArrayList<>(childModels.size());
+        for (IModel childModel : childModels) {
+            String resource = HeadElementIndex.resourceOf(IModelExtensions.first(childModel));
+            if (resource != null) {
+                Integer position = positions.get(resource);
+                if (position != null) {
+                    if (position >= 0) {
+                        headModels.set(position, childModel);
+                        positions.put(resource, -1);
+                    }
+                    continue;
+                }
+                positions.put(resource, -1);
+            }
+            appendedModels.add(childModel);
+        }
+        return append(headModels, appendedModels, modelFactory);
+    }
+
+    /**
+     * Merge for the grouping strategies, where every child goes after the last
+     * {@code <head>} child of the same type, or to the start of the
+     * {@code <head>} if there isn't one.
+     *
+     * @param headChildModels
+     * @param childModels
+     * @param modelFactory
+     * @return Merged children, or {@code null} for the rare {@code <head>}
+     * where a child can't be placed without looking at individual events, as
+     * described in {@link #merge}.
+     */
+    private static List<IModel> group(List<IModel> headChildModels, List<IModel> childModels, IModelFactory modelFactory) {
+        Node front = new Node(null);
+        Node[] lastOfType = new Node[HeadElementIndex.OTHER + 1];
+        Map<Object, Integer> keyCounts = new HashMap<>();
+        Set<Object> nestedKeys = new HashSet<>();
+
+        Node tail = front;
+        for (IModel headChildModel : headChildModels) {
+            if (!isSelfContained(headChildModel)) {
+                return null;
+            }
+            tail = tail.insertAfter(headChildModel);
+            lastOfType[HeadElementIndex.classify(IModelExtensions.first(headChildModel))] = tail;
+            countKeys(headChildModel, keyCounts, nestedKeys);
+        }
+        for (IModel childModel : childModels) {
+            if (!IModelExtensions.isWhitespace(childModel)) {
+                if (!isSelfContained(childModel)
+                        || HeadElementIndex.classify(IModelExtensions.first(childModel)) == HeadElementIndex.TEXT) {
+                    return null;
+                }
+                countKeys(childModel, keyCounts, nestedKeys);
+            }
+        }
+
+        for (IModel childModel : childModels) {
+            if (IModelExtensions.isWhitespace(childModel)) {
+                continue;
+            }
+            int type = HeadElementIndex.classify(IModelExtensions.first(childModel));
+            Node last = lastOfType[type];
+            Node anchor = front;
+            if (last != null) {
+                anchor = findGroupEnd(front, last, keyCounts, nestedKeys);
+                if (anchor == null) {
+                    return null;
+                }
+            }
+            Node inserted = insertWithWhitespace(anchor, childModel, modelFactory);
+            if (anchor == front || anchor == last) {
+                lastOfType[type] = inserted;
+            }
+        }
+
+        List<IModel> merged = new ArrayList<>(headChildModels.size() + childModels.size() * 2 + 2);
+        for (Node node = front.next; node != null; node = node.next) {
+            merged.add(node.model);
+        }
+        return merged;
+    }
+
+    /**
+     * Find the child that the grouping strategies insert after to add to the
+     * group ending with the given child.  The strategies look for the first
+     * event in the {@code <head>} equal to the start of that child and add its
+     * size, so a repeat of the child earlier on moves the insertion point there.
+     *
+     * @param front
+     * @param last Last child of the group.
+     * @param keyCounts
+     * @param nestedKeys
+     * @return The child to insert after, or {@code null} if the insertion point
+     * isn't between two children.
+     */
+    private static Node findGroupEnd(Node front, Node last, Map<Object, Integer> keyCounts, Set<Object> nestedKeys) {
+        ITemplateEvent event = IModelExtensions.first(last.model);
+        Object key = keyOf(event);
+        if (keyCounts.get(key) == 1) {
+            return last;
+        }
+        if (nestedKeys.contains(key)) {
+            return null;
+        }
+        Node node = front.next;
+        while (!ITemplateEventExtensions.equals(IModelExtensions.first(node.model), event)) {
+            node = node.next;
+        }
+        int remaining = last.model.size() - node.model.size();
+        while (remaining > 0) {
+            node = node.next;
+            remaining -= node.model.size();
+        }
+        return remaining == 0 ? node : null;
+    }
+
+    /**
+     * Insert a child after the given node the same way
+     * {@link IModelExtensions#insertModelWithWhitespace} does: in front of any
+     * whitespace that follows, after any whitespace that precedes, or otherwise
+     * surrounded by new whitespace.
+     *
+     * @param anchor
+     * @param childModel
+     * @param modelFactory
+     * @return The node of the inserted child.
+     */
+    private static Node insertWithWhitespace(Node anchor, IModel childModel, IModelFactory modelFactory) {
+        Node next = anchor.next;
+        if (next != null && IModelExtensions.isWhitespace(next.model)) {
+            return anchor.insertAfter(next.model).insertAfter(childModel);
+        }
+        if (anchor.model != null && IModelExtensions.isWhitespace(anchor.model)) {
+            Node inserted = anchor.insertAfter(childModel);
+            inserted.insertAfter(anchor.model);
+            return inserted;
+        }
+        IModel whitespace = modelFactory.createModel(modelFactory.createText("\n\t"));
+        Node inserted = anchor.insertAfter(whitespace).insertAfter(childModel);
+        inserted.insertAfter(whitespace);
+        return inserted;
+    }
+
+    /**
+     * Return whether a child model is still the same child once its events are
+     * put in another {@code <head>}: a whole element or a single event that
+     * doesn't open or close one, and not a {@code <head>} element that could be
+     * mistaken for the {@code <head>} itself.
+     *
+     * @param model
+     * @return {@code true} if the model can be merged as a single child.
+     */
+    private static boolean isSelfContained(IModel model) {
+        ITemplateEvent event = IModelExtensions.first(model);
+        if (model.size() == 1) {
+            return !(event instanceof IOpenElementTag) && !(event instanceof ICloseElementTag);
+        }
+        return IModelExtensions.isElement(model) && !IModelExtensions.isElementOf(model, "head");
+    }
+
+    private static void countKeys(IModel model, Map<Object, Integer> keyCounts, Set<Object> nestedKeys) {
+        Object key = keyOf(IModelExtensions.first(model));
+        if (key != null) {
+            Integer count = keyCounts.get(key);
+            keyCounts.put(key, count != null ? count + 1 : 1);
+        }
+        for (int i = 1, size = model.size(); i < size; i++) {
+            key = keyOf(model.get(i));
+            if (key != null) {
+                nestedKeys.add(key);
+            }
+        }
+    }
+
+    /**
+     * Return a key that is equal for any events that
+     * {@link ITemplateEventExtensions#equals} could consider equal to a
+     * comment or opening element, or {@code null} for any other event.
+     *
+     * @param event
+     * @return Key for looking up equal events.
+     */
+    private static Object keyOf(ITemplateEvent event) {
+        if (event instanceof IProcessableElementTag) {
+            IProcessableElementTag tag = (IProcessableElementTag) event;
+            return Arrays.asList(tag.getElementCompleteName(), tag.getAttributeMap());
+        }
+        return event instanceof IComment ? event : null;
+    }
+
+    private HeadChildModels() {
+        throw new AssertionError();
+    }
+
+    private static final class Node {
+
+        final IModel model;
+        Node next;
+
+        Node(IModel model) {
+            this.model = model;
+        }
+
+        Node insertAfter(IModel model) {
+            Node node = new Node(model);
+            node.next = next;
+            next = node;
+            return node;
+        }
+
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.internal;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.annotation.Nullable;
+import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
+import nz.net.ultraq.thymeleaf.models.extensions.ModelStructure;
+import org.thymeleaf.model.IComment;
+import org.thymeleaf.model.IElementTag;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+
+/**
+ * A table of the immediate children of a {@code <head>} element, recording the
+ * position, size, and type of each child, the last child of each type, and
+ * the first child declaring each resource, all worked out in a single pass
+ * over the {@code <head>}.
+ * <p>
+ * The table describes the {@code <head>} model as it was when the table was
+ * created, and isn't updated for any later changes to that model.
+ *
+ * @author zhanhb
+ */
+final class HeadElementIndex {
+
+    /**
+     * Type of text, whitespace, and any other child that isn't an element or
+     * comment.
+     */
+    static final int TEXT = 0;
+    static final int COMMENT = 1;
+    static final int META = 2;
+    static final int SCRIPT = 3;
+    static final int STYLE = 4;
+    static final int STYLESHEET = 5;
+    static final int OTHER = 6;
+
+    /**
+     * Figure out the type of a model, as described by its first event.
+     *
+     * @param event
+     * @return One of the type constants of this class.
+     */
+    static int classify(ITemplateEvent event) {
+        if (event instanceof IComment) {
+            return COMMENT;
+        }
+        if (event instanceof IElementTag) {
+            String elementCompleteName = ((IElementTag) event).getElementCompleteName();
+            if (event instanceof IProcessableElementTag && "meta".equals(elementCompleteName)) {
+                return META;
+            }
+            if (event instanceof IOpenElementTag && "script".equals(elementCompleteName)) {
+                return SCRIPT;
+            }
+            if (event instanceof IOpenElementTag && "style".equals(elementCompleteName)) {
+                return STYLE;
+            }
+            if (event instanceof IProcessableElementTag && "link".equals(elementCompleteName)
+                    && "stylesheet".equals(((IProcessableElementTag) event).getAttributeValue("rel"))) {
+                return STYLESHEET;
+            }
+            return OTHER;
+        }
+        return TEXT;
+    }
+
+    /**
+     * Return the identity of the resource declared by an element: the
+     * {@code src} of a {@code <script>}, the {@code rel} and {@code href} of a
+     * {@code <link>}, and the {@code charset}, {@code name}, or
+     * {@code property} of a {@code <meta>}.
+     *
+     * @param event First event of a model.
+     * @return Key for the resource, or {@code null} if the event doesn't start
+     * an element that declares one.
+     */
+    @Nullable
+    static String resourceOf(ITemplateEvent event) {
+        if (!(event instanceof IProcessableElementTag)) {
+            return null;
+        }
+        IProcessableElementTag tag = (IProcessableElementTag) event;
+        switch (tag.getElementCompleteName()) {
+            case "script": {
+                String src = tag.getAttributeValue("src");
+                return event instanceof IOpenElementTag && src != null ? "script " + src : null;
+            }
+            case "link": {
+                String rel = tag.getAttributeValue("rel");
+                String href = tag.getAttributeValue("href");
+                return rel != null && href != null ? "link " + rel.toLowerCase(Locale.ROOT) + " " + href : null;
+            }
+            case "meta": {
+                if (tag.hasAttribute("charset")) {
+                    return "meta charset";
+                }
+                String name = tag.getAttributeValue("name");
+                if (name != null) {
+                    return "meta name " + name;
+                }
+                String property = tag.getAttributeValue("property");
+                return property != null ? "meta property " + property : null;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private final IModel headModel;
+    private int count;
+    private int[] positions = new int[16];
+    private int[] sizes = new int[16];
+    private final int[] lastOfType = new int[OTHER + 1];
+    private Map<String, Integer> resources;
+
+    /**
+     * Constructor, index the children of the given {@code <head>} model.
+     *
+     * @param headModel
+     */
+    HeadElementIndex(IModel headModel) {
+        this.headModel = headModel;
+        Arrays.fill(lastOfType, -1);
+
+        if (IModelExtensions.isElement(headModel)) {
+            ModelStructure structure = ModelStructure.of(headModel);
+            for (int i = 1, end = headModel.size() - 1; i < end; i = structure.nextSiblingIndex(i)) {
+                if (count == positions.length) {
+                    positions = Arrays.copyOf(positions, count * 2);
+                    sizes = Arrays.copyOf(sizes, count * 2);
+                }
+                positions[count] = i;
+                sizes[count] = structure.sizeOfModelAt(i);
+                lastOfType[classify(headModel.get(i))] = count;
+                count++;
+            }
+        }
+    }
+
+    /**
+     * Return the number of immediate children of the {@code <head>}.
+     *
+     * @return Number of indexed children.
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Return the position of a child within the {@code <head>} model.
+     *
+     * @param child Index of the child, from {@code 0} to {@code size() - 1}.
+     * @return Position of the first event of the child.
+     */
+    int getPosition(int child) {
+        checkChild(child);
+        return positions[child];
+    }
+
+    /**
+     * Return the number of events that make up a child.
+     *
+     * @param child
+     * @return Size of the child's model.
+     */
+    int getSize(int child) {
+        checkChild(child);
+        return sizes[child];
+    }
+
+    /**
+     * Return the first child that declares the given resource.
+     *
+     * @param resource A resource key, as returned by {@link #resourceOf}.
+     * @return Index of the first child declaring the resource, or {@code -1}
+     * if no child declares it.
+     */
+    int findChildDeclaring(String resource) {
+        if (resources == null) {
+            resources = new HashMap<>();
+            for (int child = count - 1; child >= 0; child--) {
+                String childResource = resourceOf(headModel.get(positions[child]));
+                if (childResource != null) {
+                    resources.put(childResource, child);
+                }
+            }
+        }
+        Integer child = resources.get(resource);
+        return child != null ? child : -1;
+    }
+
+    /**
+     * Return the last child of the given type.
+     *
+     * @param type
+     * @return Index of the last child of the type, or {@code -1} if there are
+     * no children of that type.
+     */
+    int findLastChildOfType(int type) {
+        return lastOfType[type];
+    }
+
+    private void checkChild(int child) {
+        if (child < 0 || child >= count) {
+            throw new IndexOutOfBoundsException("Child " + child + " is outside of the child range 0-" + (count - 1));
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.internal;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A cache of values worked out from objects that Thymeleaf keeps for a while
+ * and never changes, like template models and engine configurations, which
+ * the layout dialect has no other place to keep them on.
+ * <p>
+ * Keys are compared by identity and only weakly referenced, so an entry lasts
+ * as long as Thymeleaf holds on to its key, and is dropped on the next use of
+ * the cache once the key has been garbage collected. Lookups don't lock, so
+ * the cache can be shared by every thread processing templates. Values must
+ * not refer back to their keys, or the keys will never be collected.
+ *
+ * @param <K> Type of the objects values are cached for.
+ * @param <V> Type of the cached values.
+ * @author zhanhb
+ */
+public final class IdentityCache<K, V> {
+
+    private final ConcurrentMap<Object, V> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<K> staleKeys = new ReferenceQueue<>();
+
+    /**
+     * Return the value cached for the given key.
+     *
+     * @param key
+     * @return The cached value, or {@code null} if there isn't one.
+     */
+    @Nullable
+    public V get(@Nonnull K key) {
+        expungeStaleEntries();
+        return entries.get(new LookupKey(key));
+    }
+
+    /**
+     * Cache a value for the given key, unless another thread got there first.
+     *
+     * @param key
+     * @param value
+     * @return The value now cached for the key, which is the existing one if
+     * there was one.
+     */
+    @Nonnull
+    public V putIfAbsent(@Nonnull K key, @Nonnull V value) {
+        expungeStaleEntries();
+        V existing = entries.putIfAbsent(new WeakKey<>(key, staleKeys), value);
+        return existing != null ? existing : value;
+    }
+
+    /**
+     * Cache a value for the given key, replacing any value already cached for
+     * it.
+     *
+     * @param key
+     * @param value
+     */
+    public void put(@Nonnull K key, @Nonnull V value) {
+        expungeStaleEntries();
+        entries.put(new WeakKey<>(key, staleKeys), value);
+    }
+
+    /**
+     * Return the value cached for the given key, creating and caching one if
+     * there isn't one yet.
+     *
+     * @param key
+     * @param creator Creates the value, may be called by several threads at
+     * once, with only one of the values making it into the cache.
+     * @return The cached value.
+     */
+    @Nonnull
+    public V getOrCreate(@Nonnull K key, @Nonnull Supplier<? extends V> creator) {
+        V value = get(key);
+        return value != null ? value : putIfAbsent(key, creator.get());
+    }
+
+    /**
+     * Remove the entries of any keys that have since been garbage collected.
+     */
+    private void expungeStaleEntries() {
+        for (Reference<? extends K> reference; (reference = staleKeys.poll()) != null;) {
+            entries.remove(reference);
+        }
+    }
+
+    /**
+     * Key held by the cache, equal to any other key for the same object until
+     * that object has been collected, and after that only to itself.
+     */
+    private static final class WeakKey<K> extends WeakReference<K> {
+
+        private final int hash;
+
+        WeakKey(K key, ReferenceQueue<? super K> queue) {
+            super(key, queue);
+            hash = System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            Object key = get();
+            return key != null && (obj instanceof LookupKey ? ((LookupKey) obj).key == key
+                    : obj instanceof WeakKey && ((WeakKey<?>) obj).get() == key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    /**
+     * Short-lived key for looking up entries without creating a weak reference.
+     */
+    private static final class LookupKey {
+
+        private final Object key;
+        private final int hash;
+
+        LookupKey(Object key) {
+            this.key = key;
+            hash = System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof WeakKey ? ((WeakKey<?>) obj).get() == key
+                    : obj instanceof LookupKey && ((LookupKey) obj).key == key;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.models;
+
+import javax.annotation.Nullable;
+import nz.net.ultraq.thymeleaf.internal.IdentityCache;
+import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.engine.TemplateData;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelFactory;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+
+/**
+ * The parts of a whole template that sit outside of its root element (eg: the
+ * doctype and any comments), together with the root element itself, so that a
+ * template being processed can be put back into its document without having to
+ * look up and copy the whole template again.
+ * <p>
+ * Skeletons of cacheable templates are kept for as long as Thymeleaf's template
+ * cache holds on to the template data they were created for.
+ *
+ * @author zhanhb
+ */
+public final class DocumentSkeleton {
+
+    private static final ITemplateEvent[] EMPTY = {};
+
+    private static final IdentityCache<TemplateData, DocumentSkeleton> SKELETONS = new IdentityCache<>();
+
+    /**
+     * Return the skeleton of the template currently being processed.
+     *
+     * @param context
+     * @return Skeleton of the whole template for the context's template data.
+     */
+    public static DocumentSkeleton forTemplate(ITemplateContext context) {
+        TemplateData templateData = context.getTemplateData();
+        boolean cacheable = templateData.getValidity().isCacheable();
+        DocumentSkeleton skeleton = cacheable ? SKELETONS.get(templateData) : null;
+        if (skeleton == null) {
+            skeleton = new DocumentSkeleton(new TemplateModelFinder(context).findTemplate(templateData.getTemplate()));
+            if (cacheable) {
+                skeleton = SKELETONS.putIfAbsent(templateData, skeleton);
+            }
+        }
+        return skeleton;
+    }
+
+    private final ITemplateEvent[] beforeRoot;
+    private final IProcessableElementTag rootElement;
+    private final ITemplateEvent[] afterRoot;
+
+    private DocumentSkeleton(TemplateModel template) {
+        int rootIndex = IModelExtensions.findIndexOf(template, event -> event instanceof IProcessableElementTag);
+        if (rootIndex == -1) {
+            beforeRoot = events(template, 0, template.size());
+            rootElement = null;
+            afterRoot = EMPTY;
+        } else {
+            beforeRoot = events(template, 0, rootIndex);
+            rootElement = (IProcessableElementTag) template.get(rootIndex);
+            afterRoot = events(template, rootIndex + IModelExtensions.sizeOfModelAt(template, rootIndex), template.size());
+        }
+    }
+
+    private static ITemplateEvent[] events(IModel model, int from, int to) {
+        if (from >= to) {
+            return EMPTY;
+        }
+        ITemplateEvent[] events = new ITemplateEvent[to - from];
+        for (int i = from; i < to; ++i) {
+            events[i - from] = model.get(i);
+        }
+        return events;
+    }
+
+    /**
+     * Create a new document model out of this skeleton, with the given model in
+     * place of the original root element.
+     *
+     * @param modelFactory
+     * @param rootModel
+     * @return New model of the whole document.
+     */
+    public IModel createModel(IModelFactory modelFactory, IModel rootModel) {
+        IModel result = modelFactory.createModel();
+        for (ITemplateEvent event : beforeRoot) {
+            result.add(event);
+        }
+        result.addModel(rootModel);
+        for (ITemplateEvent event : afterRoot) {
+            result.add(event);
+        }
+        return result;
+    }
+
+    /**
+     * Return the root element of the template.
+     *
+     * @return The first processable element of the template, or {@code null} if
+     * the template doesn't have one.
+     */
+    @Nullable
+    public IProcessableElementTag getRootElement() {
+        return rootElement;
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import nz.net.ultraq.thymeleaf.internal.IdentityCache;
+import nz.net.ultraq.thymeleaf.models.extensions.IModelExtensions;
+import org.thymeleaf.engine.TemplateData;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelFactory;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+
+/**
+ * An index of the layout dialect fragments in a template, built in a single
+ * pass over the template's model, so that fragments can be retrieved without
+ * having Thymeleaf parse the template again with a fragment selector.
+ * <p>
+ * A fragment name maps to the same events the selector built by
+ * {@link TemplateModelFinder} would have picked out: every element whose
+ * {@code layout:fragment}/{@code data-layout-fragment} attribute is the name,
+ * or starts with the name followed by {@code (} or {@code  (}, excluding
+ * matching elements already contained by an earlier match.
+ * <p>
+ * Indexes of cacheable templates are kept for as long as Thymeleaf's template
+ * cache holds on to the parsed template.
+ *
+ * @author zhanhb
+ */
+final class FragmentIndex {
+
+    private static final IdentityCache<TemplateModel, ConcurrentMap<String, FragmentIndex>> INDEXES
+            = new IdentityCache<>();
+
+    /**
+     * Return the fragment index of the given template for the given layout
+     * dialect prefix.
+     *
+     * @param template
+     * @param dialectPrefix
+     * @return Index of the fragments in the template.
+     */
+    static FragmentIndex forTemplate(TemplateModel template, String dialectPrefix) {
+        if (!template.getTemplateData().getValidity().isCacheable()) {
+            return new FragmentIndex(template, dialectPrefix);
+        }
+        ConcurrentMap<String, FragmentIndex> indexes = INDEXES.getOrCreate(template,
+                () -> new ConcurrentHashMap<String, FragmentIndex>(2));
+        FragmentIndex index = indexes.get(dialectPrefix);
+        if (index == null) {
+            index = new FragmentIndex(template, dialectPrefix);
+            FragmentIndex existing = indexes.putIfAbsent(dialectPrefix, index);
+            if (existing != null) {
+                index = existing;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Return the names that a fragment definition can be selected by.
+     *
+     * @param definition
+     * @param names Set to add the names to.
+     */
+    private static void addNames(String definition, Set<String> names) {
+        names.add(definition);
+        for (int i = definition.indexOf('('); i >= 0; i = definition.indexOf('(', i + 1)) {
+            names.add(definition.substring(0, i));
+            if (i > 0 && definition.charAt(i - 1) == ' ') {
+                names.add(definition.substring(0, i - 1));
+            }
+        }
+    }
+
+    private final TemplateData templateData;
+    private final Map<String, ITemplateEvent[]> fragmentEvents;
+    private final ConcurrentMap<String, TemplateFragment> fragments = new ConcurrentHashMap<>();
+
+    private FragmentIndex(TemplateModel template, String dialectPrefix) {
+        templateData = template.getTemplateData();
+
+        String fragmentAttribute = dialectPrefix + ":fragment";
+        String dataFragmentAttribute = "data-" + dialectPrefix + "-fragment";
+        Map<String, List<ITemplateEvent>> events = new HashMap<>();
+        Map<String, Integer> ends = new HashMap<>();
+        Set<String> names = new LinkedHashSet<>();
+        for (int i = 0, size = template.size(); i < size; ++i) {
+            ITemplateEvent event = template.get(i);
+            if (!(event instanceof IProcessableElementTag)) {
+                continue;
+            }
+            IProcessableElementTag tag = (IProcessableElementTag) event;
+            String definition = tag.getAttributeValue(fragmentAttribute);
+            if (definition != null) {
+                addNames(definition, names);
+            }
+            definition = tag.getAttributeValue(dataFragmentAttribute);
+            if (definition != null) {
+                addNames(definition, names);
+            }
+            if (names.isEmpty()) {
+                continue;
+            }
+            int end = i + IModelExtensions.sizeOfModelAt(template, i);
+            for (String name : names) {
+                Integer previousEnd = ends.get(name);
+                if (previousEnd != null && previousEnd > i) {
+                    continue;
+                }
+                ends.put(name, end);
+                List<ITemplateEvent> list = events.get(name);
+                if (list == null) {
+                    list = new ArrayList<>(end - i);
+                    events.put(name, list);
+                }
+                for (int j = i; j < end; ++j) {
+                    list.add(template.get(j));
+                }
+            }
+            names.clear();
+        }
+
+        fragmentEvents = new HashMap<>(events.size() * 4 / 3 + 1);
+        for (Map.Entry<String, List<ITemplateEvent>> entry : events.entrySet()) {
+            List<ITemplateEvent> list = entry.getValue();
+            fragmentEvents.put(entry.getKey(), list.toArray(new ITemplateEvent[list.size()]));
+        }
+    }
+
+    /**
+     * Return the fragment with the given name.
+     *
+     * @param fragmentName
+     * @param selector The selector that would have been used to parse the
+     * fragment out of the template, recorded in the fragment's template data.
+     * @param modelFactory
+     * @return The matching fragment, which will have an empty model if there
+     * are no fragments with the name.
+     */
+    TemplateFragment getFragment(String fragmentName, String selector, IModelFactory modelFactory) {
+        TemplateFragment fragment = fragments.get(fragmentName);
+        if (fragment == null) {
+            ITemplateEvent[] events = fragmentEvents.get(fragmentName);
+            IModel model = modelFactory.createModel();
+            if (events != null) {
+                for (ITemplateEvent event : events) {
+                    model.add(event);
+                }
+            }
+            fragment = new TemplateFragment(new TemplateData(templateData.getTemplate(),
+                    Collections.singleton(selector), templateData.getTemplateResource(),
+                    templateData.getTemplateMode(), templateData.getValidity()), model);
+
+            // Only remember fragments that exist, so lookups of arbitrary names can't grow the index
+            if (events != null) {
+                TemplateFragment existing = fragments.putIfAbsent(fragmentName, fragment);
+                if (existing != null) {
+                    fragment = existing;
+                }
+            }
+        }
+        return fragment;
+    }
+
+}
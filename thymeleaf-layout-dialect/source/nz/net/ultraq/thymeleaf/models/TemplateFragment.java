@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.models;
+
+import org.thymeleaf.engine.TemplateData;
+import org.thymeleaf.model.IModel;
+
+/**
+ * An immutable model for part of a template, together with the template data
+ * that describes where it came from. Serves the same purpose as Thymeleaf's
+ * {@link org.thymeleaf.engine.TemplateModel} for fragments that have been
+ * sliced out of an already-parsed template.
+ *
+ * @author zhanhb
+ */
+public final class TemplateFragment {
+
+    private final TemplateData templateData;
+    private final IModel model;
+
+    TemplateFragment(TemplateData templateData, IModel model) {
+        this.templateData = templateData;
+        this.model = model;
+    }
+
+    /**
+     * Return a mutable copy of the fragment's model.
+     *
+     * @return New model with the events of this fragment.
+     */
+    public IModel cloneModel() {
+        return model.cloneModel();
+    }
+
+    /**
+     * Return the template data of the fragment.
+     *
+     * @return Data of the template the fragment was taken from, including the
+     * selector that identifies the fragment.
+     */
+    public TemplateData getTemplateData() {
+        return templateData;
+    }
+
+}
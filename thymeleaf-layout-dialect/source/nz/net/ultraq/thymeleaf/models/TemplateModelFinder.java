@@ -63,6 +63,30 @@ public class TemplateModelFinder {
         return find(templateName, null);
     }
 
+    /**
+     * Return an Attoparser fragment selector that picks a fragment with
+     * layout:fragment="name" or starts with layout:fragment="name( or
+     * layout:fragment="name ( plus their data attribute equivalents. See the
+     * attoparser API docs for details:
+     * http://www.attoparser.org/apidocs/attoparser/2.0.0.RELEASE/org/attoparser/select/package-summary.html
+     *
+     * @param templateName
+     * @param fragmentName
+     * @param dialectPrefix
+     * @return Selector for the fragment, or {@code null} to select the whole
+     * template.
+     */
+    private static String fragmentSelector(String templateName, String fragmentName, String dialectPrefix) {
+        return !StringUtils.isEmpty(templateName) && !StringUtils.isEmpty(fragmentName) ? "//["
+                + dialectPrefix + ":fragment='" + fragmentName + "' or "
+                + dialectPrefix + ":fragment^='" + fragmentName + "(' or "
+                + dialectPrefix + ":fragment^='" + fragmentName + " (' or "
+                + "data-" + dialectPrefix + "-fragment='" + fragmentName + "' or "
+                + "data-" + dialectPrefix + "-fragment^='" + fragmentName + "(' or "
+                + "data-" + dialectPrefix + "-fragment^='" + fragmentName + " ('"
+                + "]" : null;
+    }
+
     /**
      * Return the model specified by the given fragment expression.
      *
@@ -70,8 +94,36 @@ public class TemplateModelFinder {
      * @return Fragment matching the fragment specification.
      */
     public TemplateModel findFragment(FragmentExpression fragmentExpression) {
-        String templateName = "this";
+        String templateName = resolveTemplateName(fragmentExpression);
+        return findFragment(templateName, resolveFragmentName(fragmentExpression),
+                IContextDelegate.getPrefixForDialect(context, LayoutDialect.class));
+    }
+
+    /**
+     * Return the fragment specified by the given fragment expression. Unlike
+     * {@link #findFragment(FragmentExpression)}, the fragment is sliced out of
+     * the whole template using an index of its fragments, which is kept with
+     * Thymeleaf's cached copy of the template, instead of parsing the template
+     * again for each different fragment.
+     *
+     * @param fragmentExpression
+     * @return Fragment matching the fragment specification.
+     */
+    public TemplateFragment findIndexedFragment(FragmentExpression fragmentExpression) {
+        String templateName = resolveTemplateName(fragmentExpression);
+        String fragmentName = resolveFragmentName(fragmentExpression);
         String dialectPrefix = IContextDelegate.getPrefixForDialect(context, LayoutDialect.class);
+        TemplateModel template = find(templateName);
+        String selector = fragmentSelector(templateName, fragmentName, dialectPrefix);
+        if (selector == null) {
+            return new TemplateFragment(template.getTemplateData(), template);
+        }
+        return FragmentIndex.forTemplate(template, dialectPrefix)
+                .getFragment(fragmentName, selector, context.getModelFactory());
+    }
+
+    private String resolveTemplateName(FragmentExpression fragmentExpression) {
+        String templateName = "this";
         IStandardExpression expression = fragmentExpression.getTemplateName();
         if (expression != null) {
             Object result = expression.execute(context);
@@ -82,12 +134,16 @@ public class TemplateModelFinder {
         if (Objects.equals(templateName, "this")) {
             templateName = context.getTemplateData().getTemplate();
         }
+        return templateName;
+    }
+
+    private String resolveFragmentName(FragmentExpression fragmentExpression) {
         IStandardExpression fragmentSelector = fragmentExpression.getFragmentSelector();
         Object execute = null;
         if (fragmentSelector != null) {
             execute = fragmentSelector.execute(context);
         }
-        return findFragment(templateName, execute != null ? execute.toString() : null, dialectPrefix);
+        return execute != null ? execute.toString() : null;
     }
 
     /**
@@ -99,20 +155,7 @@ public class TemplateModelFinder {
      * @return Fragment matching the fragment specification.
      */
     public TemplateModel findFragment(String templateName, String fragmentName, String dialectPrefix) {
-        return find(templateName,
-                // Attoparser fragment selector, picks a fragment with layout:fragment="name"
-                // or starts with layout:fragment="name( or layout:fragment="name ( plus
-                // their data attribute equivalents. See the attoparser API docs for details:
-                // http://www.attoparser.org/apidocs/attoparser/2.0.0.RELEASE/org/attoparser/select/package-summary.html
-                !StringUtils.isEmpty(templateName) && !StringUtils.isEmpty(fragmentName) ? "//["
-                + dialectPrefix + ":fragment='" + fragmentName + "' or "
-                + dialectPrefix + ":fragment^='" + fragmentName + "(' or "
-                + dialectPrefix + ":fragment^='" + fragmentName + " (' or "
-                + "data-" + dialectPrefix + "-fragment='" + fragmentName + "' or "
-                + "data-" + dialectPrefix + "-fragment^='" + fragmentName + "(' or "
-                + "data-" + dialectPrefix + "-fragment^='" + fragmentName + " ('"
-                + "]" : null
-        );
+        return find(templateName, fragmentSelector(templateName, fragmentName, dialectPrefix));
     }
 
     /**
@@ -16,8 +16,14 @@
 package nz.net.ultraq.thymeleaf.models;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
+import nz.net.ultraq.thymeleaf.internal.ConfigurationCache;
 import org.thymeleaf.context.IExpressionContext;
 import org.thymeleaf.util.StringUtils;
 
@@ -31,6 +37,8 @@ import org.thymeleaf.util.StringUtils;
  */
 public class VariableDeclarationMerger {
 
+    private static final ConfigurationCache<List<String>, String> MERGED_DECLARATIONS = new ConfigurationCache<>();
+
     private final IExpressionContext context;
 
     /**
@@ -44,7 +52,9 @@ public class VariableDeclarationMerger {
 
     /**
      * Merge {@code th:with} attributes so that names from the source value
-     * overwrite the same names in the target value.
+     * overwrite the same names in the target value. The result of merging a
+     * pair of values is kept in a {@link ConfigurationCache} and reused for
+     * later merges of the same pair, unless either value needs preprocessing.
      *
      * @param target
      * @param source
@@ -57,29 +67,51 @@ public class VariableDeclarationMerger {
         if (StringUtils.isEmpty(source)) {
             return target;
         }
+
+        // Declarations with preprocessing depend on the context, so can't be kept
+        if (target.contains("__") || source.contains("__")) {
+            return mergeDeclarations(target, source);
+        }
+        List<String> key = Arrays.asList(target, source);
+        String merged = MERGED_DECLARATIONS.get(context.getConfiguration(), key);
+        if (merged == null) {
+            merged = MERGED_DECLARATIONS.put(context.getConfiguration(), key, mergeDeclarations(target, source));
+        }
+        return merged;
+    }
+
+    private String mergeDeclarations(String target, String source) {
         VariableDeclarationParser declarationParser = new VariableDeclarationParser(context);
         List<VariableDeclaration> targetDeclarations = declarationParser.parse(target);
         List<VariableDeclaration> sourceDeclarations = declarationParser.parse(source);
 
+        Map<String, LinkedList<VariableDeclaration>> sourceDeclarationsByName = new HashMap<>(sourceDeclarations.size() * 4 / 3 + 1);
+        for (VariableDeclaration sourceDeclaration : sourceDeclarations) {
+            LinkedList<VariableDeclaration> sameNamed = sourceDeclarationsByName.get(sourceDeclaration.getName());
+            if (sameNamed == null) {
+                sameNamed = new LinkedList<>();
+                sourceDeclarationsByName.put(sourceDeclaration.getName(), sameNamed);
+            }
+            sameNamed.add(sourceDeclaration);
+        }
+
         List<VariableDeclaration> newDeclarations = new ArrayList<>(targetDeclarations.size() + sourceDeclarations.size());
+        Set<VariableDeclaration> overrides = new HashSet<>();
         for (VariableDeclaration targetDeclaration : targetDeclarations) {
-            VariableDeclaration override = null;
-            String name = targetDeclaration.getName();
-            for (VariableDeclaration sourceDeclaration : sourceDeclarations) {
-                if (Objects.equals(name, sourceDeclaration.getName())) {
-                    override = sourceDeclaration;
-                    break;
-                }
-            }
-            if (override != null) {
-                sourceDeclarations.remove(override);
+            LinkedList<VariableDeclaration> sameNamed = sourceDeclarationsByName.get(targetDeclaration.getName());
+            if (sameNamed != null && !sameNamed.isEmpty()) {
+                VariableDeclaration override = sameNamed.removeFirst();
+                overrides.add(override);
                 newDeclarations.add(override);
             } else {
                 newDeclarations.add(targetDeclaration);
             }
         }
-
-        newDeclarations.addAll(sourceDeclarations);
+        for (VariableDeclaration sourceDeclaration : sourceDeclarations) {
+            if (!overrides.contains(sourceDeclaration)) {
+                newDeclarations.add(sourceDeclaration);
+            }
+        }
 
         StringBuilder buffer = new StringBuilder(source.length() + target.length());
         boolean first = true;
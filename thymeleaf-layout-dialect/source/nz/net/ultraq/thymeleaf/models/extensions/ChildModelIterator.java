@@ -21,6 +21,12 @@ import org.thymeleaf.model.IModel;
 /**
  * An iterator that works with a model's immediate children, returning each one
  * as a model of its own.
+ * <p>
+ * By default each child is a copy of its events, free to be modified and kept
+ * for as long as needed. An iterator created with {@code views} set returns
+ * read-only {@link ModelView}s over the parent's events instead, which avoids
+ * the copying, but which can't be modified and which go stale once the parent
+ * is modified. The layout dialect uses views for its own processing.
  *
  * @author zhanhb
  * @author Emanuel Rabina
@@ -28,10 +34,34 @@ import org.thymeleaf.model.IModel;
 public class ChildModelIterator implements Iterator<IModel> {
 
     private final IModel parent;
+    private final ModelStructure structure;
+    private final boolean views;
     private int currentIndex = 1;  // Starts after the root element
 
+    /**
+     * Constructor, create an iterator over the children of the given model,
+     * returning copies of each child.
+     * The model shouldn't be modified while it is being iterated over.
+     *
+     * @param parent
+     */
     public ChildModelIterator(IModel parent) {
+        this(parent, false);
+    }
+
+    /**
+     * Constructor, create an iterator over the children of the given model.
+     * The model shouldn't be modified while it is being iterated over, nor
+     * while any views returned by this iterator are in use.
+     *
+     * @param parent
+     * @param views Set to {@code true} to return read-only views over the
+     * parent's events instead of copies of them.
+     */
+    public ChildModelIterator(IModel parent, boolean views) {
         this.parent = parent;
+        this.structure = ModelStructure.of(parent);
+        this.views = views;
     }
 
     @Override
@@ -42,13 +72,15 @@ public class ChildModelIterator implements Iterator<IModel> {
     /**
      * Returns the next immediate child model of this model.
      *
-     * @return The next model in the iteration.
+     * @return The next model in the iteration, either a copy or a read-only
+     * view depending on how this iterator was created.
      */
     @Override
     public IModel next() {
-        IModel subModel = IModelExtensions.getModel(parent, currentIndex);
-        currentIndex += subModel.size();
-        return subModel;
+        int end = structure.nextSiblingIndex(currentIndex);
+        IModel subModel = new ModelView(parent, currentIndex, end - currentIndex);
+        currentIndex = end;
+        return views ? subModel : subModel.cloneModel();
     }
 
     /**
@@ -25,6 +25,7 @@ import javax.annotation.Nullable;
 import nz.net.ultraq.thymeleaf.internal.ITemplateEventConsumer;
 import nz.net.ultraq.thymeleaf.internal.ITemplateEventIntPredicate;
 import nz.net.ultraq.thymeleaf.internal.ITemplateEventPredicate;
+import org.thymeleaf.engine.TemplateModel;
 import org.thymeleaf.model.ICloseElementTag;
 import org.thymeleaf.model.IElementTag;
 import org.thymeleaf.model.IModel;
@@ -63,6 +64,21 @@ public class IModelExtensions {
         return isElement(self) ? new ChildModelIterator(self) : null;
     }
 
+    /**
+     * If this model represents an element, then this method returns an iterator
+     * over any potential child items as read-only views over this model's
+     * events.  The views avoid copying the children, but can't be modified and
+     * go stale once this model is modified.
+     *
+     * @param self
+     * @return New model iterator.
+     * @see ModelView
+     */
+    @Nullable
+    public static ChildModelIterator childModelViewIterator(@Nonnull IModel self) {
+        return isElement(self) ? new ChildModelIterator(self, true) : null;
+    }
+
     /**
      * Iterate through each event in the model.
      *
@@ -309,29 +325,24 @@ public class IModelExtensions {
             @Nullable IModel model, @Nonnull IModelFactory modelFactory) {
 
         if (0 <= pos && pos <= self.size()) {
+            ModelEditor editor = new ModelEditor(self);
 
             // Use existing whitespace found at or before the insertion point
-            IModel whitespace = getModel(self, pos);
-            if (asBoolean(whitespace) && isWhitespace(whitespace)) {
-                self.insertModel(pos, model);
-                self.insertModel(pos, whitespace);
+            ITemplateEvent whitespace = whitespaceAt(self, pos);
+            if (whitespace != null) {
+                editor.insert(pos, whitespace).insertModel(pos, model).apply();
                 return;
             }
-            if (pos > 0) {
-                whitespace = getModel(self, pos - 1);
-                if (asBoolean(whitespace) && isWhitespace(whitespace)) {
-                    self.insertModel(pos, whitespace);
-                    self.insertModel(pos, model);
-                    return;
-                }
+            whitespace = whitespaceAt(self, pos - 1);
+            if (whitespace != null) {
+                editor.insertModel(pos, model).insert(pos, whitespace).apply();
+                return;
             }
 
             // Generate whitespace, usually inserting into a tag that is immediately
             // closed so whitespace should be added to either side
-            whitespace = modelFactory.createModel(modelFactory.createText("\n\t"));
-            self.insertModel(pos, whitespace);
-            self.insertModel(pos, model);
-            self.insertModel(pos, whitespace);
+            IText newWhitespace = modelFactory.createText("\n\t");
+            editor.insert(pos, newWhitespace).insertModel(pos, model).insert(pos, newWhitespace).apply();
         }
     }
 
@@ -352,24 +363,41 @@ public class IModelExtensions {
 
             // TODO: Because I can't check the parent for whitespace hints, I should
             //       make this smarter and find whitespace within the model to copy.
-            IModel whitespace = getModel(self, pos); // Assumes that whitespace exists at the insertion point
-            if (asBoolean(whitespace) && isWhitespace(whitespace)) {
-                self.insert(pos, event);
-                self.insertModel(pos, whitespace);
+            ITemplateEvent whitespace = whitespaceAt(self, pos); // Assumes that whitespace exists at the insertion point
+            if (whitespace != null) {
+                new ModelEditor(self).insert(pos, whitespace).insert(pos, event).apply();
             } else {
                 IText newLine = modelFactory.createText("\n");
                 if (pos == 0) {
-                    self.insert(pos, newLine);
-                    self.insert(pos, event);
+                    new ModelEditor(self).insert(pos, event).insert(pos, newLine).apply();
                 } else if (pos == self.size()) {
-                    self.insert(pos, newLine);
-                    self.insert(pos, event);
-                    self.insert(pos, newLine);
+                    new ModelEditor(self).insert(pos, newLine).insert(pos, event).insert(pos, newLine).apply();
                 }
             }
         }
     }
 
+    /**
+     * Returns the event at the given position if it is collapsible whitespace,
+     * the same test as {@code isWhitespace(getModel(self, pos))} without having
+     * to copy anything.
+     *
+     * @param self
+     * @param pos
+     * @return The whitespace event at the position, or {@code null} if there
+     * isn't one.
+     */
+    @Nullable
+    private static ITemplateEvent whitespaceAt(IModel self, int pos) {
+        if (0 <= pos && pos < self.size()) {
+            ITemplateEvent event = self.get(pos);
+            if (ITemplateEventExtensions.isWhitespace(event)) {
+                return event;
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns whether or not this model represents an element with potential
      * child elements.
@@ -440,9 +468,7 @@ public class IModelExtensions {
      */
     public static void removeChildren(@Nonnull IModel self) {
         if (isElement(self)) {
-            while (self.size() > 2) {
-                self.remove(1);
-            }
+            new ModelEditor(self).remove(1, self.size() - 2).apply();
         }
     }
 
@@ -475,11 +501,7 @@ public class IModelExtensions {
      */
     public static void removeModel(@Nonnull IModel self, int pos) {
         if (0 <= pos && pos < self.size()) {
-            int modelSize = sizeOfModelAt(self, pos);
-            while (modelSize > 0) {
-                self.remove(pos);
-                modelSize--;
-            }
+            new ModelEditor(self).removeModel(pos).apply();
         }
     }
 
@@ -492,10 +514,9 @@ public class IModelExtensions {
      */
     public static void replaceModel(@Nonnull IModel self, int pos, @Nullable IModel model) {
         if (0 <= pos && pos < self.size()) {
-            removeModel(self, pos);
-            // noop if model is null
+            // noop if model is null, as with Model.insertModel
             // https://github.com/thymeleaf/thymeleaf/blob/thymeleaf-3.0.11.RELEASE/src/main/java/org/thymeleaf/engine/Model.java#L206
-            self.insertModel(pos, model);
+            new ModelEditor(self).replaceModel(pos, model).apply();
         }
     }
 
@@ -511,6 +532,11 @@ public class IModelExtensions {
      */
     @SuppressWarnings("ValueOfIncrementOrDecrementUsed")
     public static int sizeOfModelAt(@Nonnull IModel self, int index) {
+        // Template models can't change, so make use of their structure table
+        if (self instanceof TemplateModel) {
+            return ModelStructure.of(self).sizeOfModelAt(index);
+        }
+
         int eventIndex = index;
         ITemplateEvent event = self.get(eventIndex++);
 
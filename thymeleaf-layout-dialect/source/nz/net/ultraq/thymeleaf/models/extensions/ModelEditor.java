@@ -0,0 +1,200 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.models.extensions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.ITemplateEvent;
+
+/**
+ * Records a batch of insertions and removals against the original positions of
+ * a model's events, then applies them all with a single rebuild of the model.
+ * This avoids the cost of shifting every following event on each individual
+ * {@code insert}/{@code remove} call, which adds up when making several edits
+ * to a large model.
+ * <p>
+ * All positions given to an editor refer to the model as it was when the
+ * editor was created, no matter what other edits have been recorded. Events
+ * inserted at the same position appear in the order they were recorded, and
+ * ahead of the original event at that position.
+ *
+ * @author zhanhb
+ */
+public final class ModelEditor {
+
+    private final IModel model;
+    private final int size;
+    private final List<Insertion> insertions = new ArrayList<>(4);
+    private boolean[] removed;
+
+    /**
+     * Constructor, create an editor for the given model.
+     *
+     * @param model
+     */
+    public ModelEditor(@Nonnull IModel model) {
+        this.model = model;
+        this.size = model.size();
+    }
+
+    /**
+     * Insert an event before the event at the given position.
+     *
+     * @param pos A position from {@code 0} to the size of the model.
+     * @param event
+     * @return This editor.
+     */
+    public ModelEditor insert(int pos, @Nonnull ITemplateEvent event) {
+        checkPosition(pos, size);
+        insertions.add(new Insertion(pos, event, null));
+        return this;
+    }
+
+    /**
+     * Insert all of the events of a model before the event at the given
+     * position. The events are read from the model when the edits are applied.
+     *
+     * @param pos A position from {@code 0} to the size of the model.
+     * @param model Model to insert, does nothing if {@code null}.
+     * @return This editor.
+     */
+    public ModelEditor insertModel(int pos, @Nullable IModel model) {
+        checkPosition(pos, size);
+        if (model != null) {
+            insertions.add(new Insertion(pos, null, model));
+        }
+        return this;
+    }
+
+    /**
+     * Remove a number of events starting from the given position.
+     *
+     * @param pos
+     * @param count
+     * @return This editor.
+     */
+    public ModelEditor remove(int pos, int count) {
+        checkPosition(pos, size - count);
+        if (count > 0) {
+            if (removed == null) {
+                removed = new boolean[size];
+            }
+            Arrays.fill(removed, pos, pos + count, true);
+        }
+        return this;
+    }
+
+    /**
+     * Remove a models-worth of events from the given position, as per
+     * {@link IModelExtensions#removeModel}.
+     *
+     * @param pos
+     * @return This editor.
+     */
+    public ModelEditor removeModel(int pos) {
+        return remove(pos, IModelExtensions.sizeOfModelAt(model, pos));
+    }
+
+    /**
+     * Replace the model at the given position with another one, as per
+     * {@link IModelExtensions#replaceModel}.
+     *
+     * @param pos
+     * @param model
+     * @return This editor.
+     */
+    public ModelEditor replaceModel(int pos, @Nullable IModel model) {
+        removeModel(pos);
+        return insertModel(pos, model);
+    }
+
+    /**
+     * Apply all of the recorded edits to the model.
+     */
+    public void apply() {
+        if (insertions.isEmpty() && removed == null) {
+            return;
+        }
+
+        // Insertions were recorded in order, so a stable sort keeps those at the
+        // same position in that order
+        Insertion[] sorted = insertions.toArray(new Insertion[insertions.size()]);
+        Arrays.sort(sorted);
+
+        ITemplateEvent[] events = new ITemplateEvent[size];
+        for (int i = 0; i < size; i++) {
+            events[i] = model.get(i);
+        }
+        model.reset();
+
+        int next = 0;
+        for (int i = 0; i <= size; i++) {
+            for (; next < sorted.length && sorted[next].pos == i; next++) {
+                sorted[next].addTo(model, events);
+            }
+            if (i < size && (removed == null || !removed[i])) {
+                model.add(events[i]);
+            }
+        }
+
+        insertions.clear();
+        removed = null;
+    }
+
+    private static void checkPosition(int pos, int max) {
+        if (pos < 0 || pos > max) {
+            throw new IndexOutOfBoundsException("Position " + pos + " is outside of the model range 0-" + max);
+        }
+    }
+
+    private static final class Insertion implements Comparable<Insertion> {
+
+        final int pos;
+        final ITemplateEvent event;
+        final IModel model;
+
+        Insertion(int pos, ITemplateEvent event, IModel model) {
+            this.pos = pos;
+            this.event = event;
+            this.model = model;
+        }
+
+        void addTo(IModel target, ITemplateEvent[] originalEvents) {
+            if (event != null) {
+                target.add(event);
+            } else if (model == target) {
+                for (ITemplateEvent originalEvent : originalEvents) {
+                    target.add(originalEvent);
+                }
+            } else {
+                for (int i = 0, size = model.size(); i < size; i++) {
+                    target.add(model.get(i));
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(Insertion other) {
+            return pos < other.pos ? -1 : pos == other.pos ? 0 : 1;
+        }
+
+    }
+
+}
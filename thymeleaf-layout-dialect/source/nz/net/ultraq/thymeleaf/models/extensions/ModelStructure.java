@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.models.extensions;
+
+import javax.annotation.Nonnull;
+import nz.net.ultraq.thymeleaf.internal.IdentityCache;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.model.ICloseElementTag;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+
+/**
+ * A table of the element structure of a model, built in a single pass over its
+ * events, mapping each opening element to its matching closing element.
+ * Subtree sizes and sibling lookups then become constant-time operations.
+ * <p>
+ * Only the tables of Thymeleaf's immutable {@link TemplateModel}s are kept, for
+ * as long as the template model itself. The table of any other model is built
+ * afresh each time it is asked for, and is only valid until that model is
+ * next modified, so should be used for a single pass over the model.
+ *
+ * @author zhanhb
+ */
+public final class ModelStructure {
+
+    private static final IdentityCache<IModel, ModelStructure> STRUCTURES = new IdentityCache<>();
+
+    /**
+     * Return the structure of the given model, reusing the one created earlier
+     * if the model is a template model.
+     *
+     * @param model
+     * @return Structure of the model's events.
+     */
+    @Nonnull
+    public static ModelStructure of(@Nonnull IModel model) {
+        if (!(model instanceof TemplateModel)) {
+            return new ModelStructure(model);
+        }
+        ModelStructure structure = STRUCTURES.get(model);
+        return structure != null ? structure : STRUCTURES.putIfAbsent(model, new ModelStructure(model));
+    }
+
+    private final int[] ends;
+
+    private ModelStructure(IModel model) {
+        int size = model.size();
+        ends = new int[size];
+
+        // Elements still waiting on their closing tags, innermost last
+        int[] open = new int[16];
+        int depth = 0;
+
+        for (int i = 0; i < size; i++) {
+            ITemplateEvent event = model.get(i);
+            ends[i] = i + 1;
+            if (event instanceof IOpenElementTag) {
+                if (depth == open.length) {
+                    int[] grown = new int[depth * 2];
+                    System.arraycopy(open, 0, grown, 0, depth);
+                    open = grown;
+                }
+                open[depth++] = i;
+            } else if (event instanceof ICloseElementTag) {
+                // Unmatched closing tags do not correspond to any opening element,
+                // and so should not affect the model level.
+                if (!((ICloseElementTag) event).isUnmatched() && depth > 0) {
+                    ends[open[--depth]] = i + 1;
+                }
+            }
+        }
+
+        // Anything left open runs through to the end of the model
+        while (depth > 0) {
+            ends[open[--depth]] = size;
+        }
+    }
+
+    /**
+     * Return the index just past the end of the event at the given position,
+     * which for an opening element is the index after its matching closing
+     * element.
+     *
+     * @param index
+     * @return Index of the next sibling of the event at the given position.
+     */
+    public int nextSiblingIndex(int index) {
+        return ends[index];
+    }
+
+    /**
+     * Return the number of events covered by this structure.
+     *
+     * @return Size of the model the structure was created from.
+     */
+    public int size() {
+        return ends.length;
+    }
+
+    /**
+     * Return the 'size' of the model at the given position (number of events
+     * from here to the matching closing tag), as per
+     * {@link IModelExtensions#sizeOfModelAt}.
+     *
+     * @param index
+     * @return Size of an element from the given position, or 1 if the event at
+     * the position isn't an opening element.
+     */
+    public int sizeOfModelAt(int index) {
+        return ends[index] - index;
+    }
+
+}
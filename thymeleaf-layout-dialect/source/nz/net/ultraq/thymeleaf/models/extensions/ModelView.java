@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nz.net.ultraq.thymeleaf.models.extensions;
+
+import java.io.IOException;
+import java.io.Writer;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelVisitor;
+import org.thymeleaf.model.ITemplateEvent;
+import org.thymeleaf.templatemode.TemplateMode;
+
+/**
+ * A read-only window over a range of events in another model, used to look at
+ * part of a model without copying its events out. The view reads straight
+ * from the underlying model, so that model shouldn't be modified while the
+ * view is in use.
+ * <p>
+ * Any attempt to modify the view throws an
+ * {@link UnsupportedOperationException}. To get a model that can be modified,
+ * or that needs to outlive changes to the underlying model, use
+ * {@link #cloneModel()}.
+ *
+ * @author zhanhb
+ */
+public final class ModelView implements IModel {
+
+    private final IModel parent;
+    private final int start;
+    private final int length;
+
+    /**
+     * Constructor, create a view over the given range of the parent model.
+     *
+     * @param parent
+     * @param start Index of the first event of the view in the parent.
+     * @param length Number of events in the view.
+     */
+    public ModelView(IModel parent, int start, int length) {
+        if (start < 0 || length < 0 || start + length > parent.size()) {
+            throw new IndexOutOfBoundsException("Range " + start + "+" + length + " is outside of the model range 0-" + parent.size());
+        }
+        this.parent = parent;
+        this.start = start;
+        this.length = length;
+    }
+
+    @Override
+    public IEngineConfiguration getConfiguration() {
+        return parent.getConfiguration();
+    }
+
+    @Override
+    public TemplateMode getTemplateMode() {
+        return parent.getTemplateMode();
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public ITemplateEvent get(int pos) {
+        if (pos < 0 || pos >= length) {
+            throw new IndexOutOfBoundsException("Index " + pos + " is outside of the view size " + length);
+        }
+        return parent.get(start + pos);
+    }
+
+    @Override
+    public void add(ITemplateEvent event) {
+        throw new UnsupportedOperationException("Model views are read-only");
+    }
+
+    @Override
+    public void insert(int pos, ITemplateEvent event) {
+        throw new UnsupportedOperationException("Model views are read-only");
+    }
+
+    @Override
+    public void replace(int pos, ITemplateEvent event) {
+        throw new UnsupportedOperationException("Model views are read-only");
+    }
+
+    @Override
+    public void addModel(IModel model) {
+        throw new UnsupportedOperationException("Model views are read-only");
+    }
+
+    @Override
+    public void insertModel(int pos, IModel model) {
+        throw new UnsupportedOperationException("Model views are read-only");
+    }
+
+    @Override
+    public void remove(int pos) {
+        throw new UnsupportedOperationException("Model views are read-only");
+    }
+
+    @Override
+    public void reset() {
+        throw new UnsupportedOperationException("Model views are read-only");
+    }
+
+    /**
+     * Copy the events of this view into a new, modifiable model.
+     *
+     * @return A new model with the events of this view.
+     */
+    @Override
+    public IModel cloneModel() {
+        IModel model = parent.getConfiguration().getModelFactory(parent.getTemplateMode()).createModel();
+        for (int i = start, end = start + length; i < end; i++) {
+            model.add(parent.get(i));
+        }
+        return model;
+    }
+
+    @Override
+    public void accept(IModelVisitor visitor) {
+        for (int i = start, end = start + length; i < end; i++) {
+            parent.get(i).accept(visitor);
+        }
+    }
+
+    @Override
+    public void write(Writer writer) throws IOException {
+        for (int i = start, end = start + length; i < end; i++) {
+            parent.get(i).write(writer);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return cloneModel().toString();
+    }
+
+}
@@ -85,6 +85,18 @@ class ExpressionProcessorTests extends Specification {
 			fragmentExpression.templateName.execute(expressionContext) == 'hello'
 	}
 
+	def "Fragment expressions are only parsed once for each configuration"() {
+		given:
+			def otherProcessor = new ExpressionProcessor(new ExpressionContext(new TemplateEngine().configuration))
+
+		when:
+			def fragmentExpression = expressionProcessor.parseFragmentExpression('~{cached.html}')
+
+		then:
+			expressionProcessor.parseFragmentExpression('~{cached.html}').is(fragmentExpression)
+			!otherProcessor.parseFragmentExpression('~{cached.html}').is(fragmentExpression)
+	}
+
 	def "Processing an expression returns a usable result"() {
 		expect:
 			expressionProcessor.process('${1 + 1}') == 2
@@ -56,6 +56,8 @@ class LayoutDialectTestExecutor extends JUnitTestExecutor {
 			'nz/net/ultraq/thymeleaf/tests/decorators/Decorate-DisabledHead.thtest',
 			'nz/net/ultraq/thymeleaf/tests/decorators/html/TitlePattern-AllowOtherProcessors.thtest',
 			'nz/net/ultraq/thymeleaf/tests/decorators/strategies/AppendingRespectLayoutTitleStrategy.thtest',
+			'nz/net/ultraq/thymeleaf/tests/decorators/strategies/DeduplicatingStrategy.thtest',
+			'nz/net/ultraq/thymeleaf/tests/decorators/strategies/DeduplicatingStrategy-Minified.thtest',
 			'nz/net/ultraq/thymeleaf/tests/decorators/strategies/GroupingRespectLayoutTitleStrategy.thtest',
 
 			// Disabled, see test file for details
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.tests
+
+import org.thymeleaf.IEngineConfiguration
+import org.thymeleaf.templateresolver.AbstractConfigurableTemplateResolver
+import org.thymeleaf.templateresource.ITemplateResource
+import org.thymeleaf.templateresource.StringTemplateResource
+
+/**
+ * Template resolver over a map of template names to their contents, for tests
+ * that need a template engine over templates of their own.  Templates are
+ * cacheable, as they would be in a production application.
+ *
+ * @author zhanhb
+ */
+class MapTemplateResolver extends AbstractConfigurableTemplateResolver {
+
+	/**
+	 * A content template decorating a layout, each with a title, a script and
+	 * a fragment.
+	 */
+	static final Map<String, String> CONTENT_AND_LAYOUT = [
+		Content: '''
+			<html xmlns:layout="http://www.ultraq.net.nz/thymeleaf/layout" layout:decorate="~{Layout}">
+			<head><title>Content</title><script src="content.js"></script></head>
+			<body><p layout:fragment="content">Content</p></body>
+			</html>
+		'''.stripIndent().trim(),
+		Layout: '''
+			<html xmlns:layout="http://www.ultraq.net.nz/thymeleaf/layout">
+			<head><title layout:title-pattern="$LAYOUT_TITLE - $CONTENT_TITLE">Layout</title><script src="layout.js"></script></head>
+			<body><p layout:fragment="content">Layout</p></body>
+			</html>
+		'''.stripIndent().trim()
+	].asImmutable()
+
+	private final Map<String, String> templates
+
+	/**
+	 * Constructor, resolve templates from the given map.
+	 *
+	 * @param templates
+	 */
+	MapTemplateResolver(Map<String, String> templates) {
+
+		this.templates = templates
+	}
+
+	@Override
+	protected ITemplateResource computeTemplateResource(IEngineConfiguration configuration, String ownerTemplate,
+		String template, String resourceName, String characterEncoding, Map<String, Object> templateResolutionAttributes) {
+
+		def content = templates[resourceName]
+		if (content == null) {
+			throw new IllegalArgumentException("No template named ${resourceName}")
+		}
+		return new StringTemplateResource(content)
+	}
+}
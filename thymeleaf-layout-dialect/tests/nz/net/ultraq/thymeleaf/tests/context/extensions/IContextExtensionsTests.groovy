@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.tests.context.extensions
+
+import nz.net.ultraq.thymeleaf.LayoutDialect
+import nz.net.ultraq.thymeleaf.context.extensions.IContextExtensions
+
+import org.thymeleaf.TemplateEngine
+import org.thymeleaf.context.ExpressionContext
+import org.thymeleaf.standard.StandardDialect
+import spock.lang.Specification
+
+/**
+ * Tests for the dialect prefixes worked out for each engine configuration.
+ *
+ * @author zhanhb
+ */
+class IContextExtensionsTests extends Specification {
+
+	def "Prefixes are looked up once for each configuration"() {
+		given:
+			def templateEngine = new TemplateEngine(
+				additionalDialects: [
+					new LayoutDialect()
+				]
+			)
+			def context = new ExpressionContext(templateEngine.configuration)
+
+		expect:
+			IContextExtensions.getPrefixForDialect(context, LayoutDialect) == 'layout'
+			IContextExtensions.getPrefixForDialect(context, LayoutDialect) == 'layout'
+			IContextExtensions.getPrefixForDialect(new ExpressionContext(templateEngine.configuration), LayoutDialect) == 'layout'
+			IContextExtensions.getPrefixForDialect(context, StandardDialect) == 'th'
+	}
+
+	def "Each configuration has its own prefixes"() {
+		given:
+			def templateEngine = new TemplateEngine(
+				additionalDialects: [
+					new LayoutDialect()
+				]
+			)
+			def otherTemplateEngine = new TemplateEngine()
+			otherTemplateEngine.addDialect('custom', new LayoutDialect())
+
+		when:
+			def prefix = IContextExtensions.getPrefixForDialect(new ExpressionContext(templateEngine.configuration), LayoutDialect)
+			def otherPrefix = IContextExtensions.getPrefixForDialect(new ExpressionContext(otherTemplateEngine.configuration), LayoutDialect)
+
+		then:
+			prefix == 'layout'
+			otherPrefix == 'custom'
+	}
+
+	def "Dialects that aren't configured have no prefix"() {
+		given:
+			def context = new ExpressionContext(new TemplateEngine().configuration)
+
+		expect:
+			IContextExtensions.getPrefixForDialect(context, LayoutDialect) == null
+			IContextExtensions.getPrefixForDialect(context, LayoutDialect) == null
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.tests.decorators
+
+import nz.net.ultraq.thymeleaf.LayoutDialect
+import nz.net.ultraq.thymeleaf.decorators.DecorationOptions
+import nz.net.ultraq.thymeleaf.decorators.DecorationPhase
+import nz.net.ultraq.thymeleaf.decorators.LayoutDialectListener
+import nz.net.ultraq.thymeleaf.decorators.strategies.AppendingStrategy
+import nz.net.ultraq.thymeleaf.tests.MapTemplateResolver
+
+import org.thymeleaf.TemplateEngine
+import org.thymeleaf.context.Context
+import spock.lang.Specification
+
+/**
+ * Tests for reusing the results of decorations across requests.  A cache hit
+ * is told apart from a fresh decoration by the document merge phase, which
+ * only a fresh decoration goes through.
+ *
+ * @author zhanhb
+ */
+class DecorationCacheTests extends Specification {
+
+	private int merges
+
+	private TemplateEngine templateEngine = new TemplateEngine(
+		additionalDialects: [
+			new LayoutDialect(new DecorationOptions(new AppendingStrategy()).withCacheDecorations(true).withListener(new LayoutDialectListener() {
+				@Override
+				void phaseStarted(DecorationPhase phase, String contentTemplate, String layoutTemplate) {
+				}
+
+				@Override
+				void phaseEnded(DecorationPhase phase, String contentTemplate, String layoutTemplate, long durationNanos, int size) {
+					if (phase == DecorationPhase.DOCUMENT_MERGE) {
+						merges++
+					}
+				}
+			}))
+		],
+		templateResolver: new MapTemplateResolver(MapTemplateResolver.CONTENT_AND_LAYOUT)
+	)
+
+	def "Decorating the same templates again reuses the earlier result"() {
+		when:
+			def first = templateEngine.process('Content', new Context())
+			def second = templateEngine.process('Content', new Context())
+
+		then:
+			merges == 1
+			second == first
+			second.contains('<title>Layout - Content</title>')
+	}
+
+	def "Clearing the template cache redoes the decoration"() {
+		given:
+			def first = templateEngine.process('Content', new Context())
+
+		when:
+			templateEngine.clearTemplateCache()
+			def second = templateEngine.process('Content', new Context())
+
+		then:
+			merges == 2
+			second == first
+	}
+}
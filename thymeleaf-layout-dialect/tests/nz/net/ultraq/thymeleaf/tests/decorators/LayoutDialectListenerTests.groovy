@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.tests.decorators
+
+import nz.net.ultraq.thymeleaf.LayoutDialect
+import nz.net.ultraq.thymeleaf.decorators.DecorationOptions
+import nz.net.ultraq.thymeleaf.decorators.DecorationPhase
+import nz.net.ultraq.thymeleaf.decorators.LayoutDialectListener
+import nz.net.ultraq.thymeleaf.decorators.strategies.AppendingStrategy
+import nz.net.ultraq.thymeleaf.tests.MapTemplateResolver
+
+import org.thymeleaf.TemplateEngine
+import org.thymeleaf.context.Context
+import spock.lang.Specification
+
+/**
+ * Tests for the phases of decoration reported to a layout dialect listener.
+ *
+ * @author zhanhb
+ */
+class LayoutDialectListenerTests extends Specification {
+
+	private List<List> calls = []
+
+	private TemplateEngine templateEngine = new TemplateEngine(
+		additionalDialects: [
+			new LayoutDialect(new DecorationOptions(new AppendingStrategy()).withListener(new LayoutDialectListener() {
+				@Override
+				void phaseStarted(DecorationPhase phase, String contentTemplate, String layoutTemplate) {
+					calls << ['start', phase, contentTemplate, layoutTemplate]
+				}
+
+				@Override
+				void phaseEnded(DecorationPhase phase, String contentTemplate, String layoutTemplate, long durationNanos, int size) {
+					assert durationNanos >= 0
+					assert size > 0
+					calls << ['end', phase, contentTemplate, layoutTemplate]
+				}
+			}))
+		],
+		templateResolver: new MapTemplateResolver(MapTemplateResolver.CONTENT_AND_LAYOUT)
+	)
+
+	def "Each phase of a decoration is reported in order"() {
+		when:
+			templateEngine.process('Content', new Context())
+
+		then:
+			calls == [
+				['start', DecorationPhase.LAYOUT_LOOKUP, 'Content', null],
+				['end', DecorationPhase.LAYOUT_LOOKUP, 'Content', 'Layout'],
+				['start', DecorationPhase.FRAGMENT_FINDING, 'Content', 'Layout'],
+				['end', DecorationPhase.FRAGMENT_FINDING, 'Content', 'Layout'],
+				['start', DecorationPhase.DOCUMENT_MERGE, 'Content', 'Layout'],
+				['start', DecorationPhase.HEAD_MERGE, 'Content', 'Layout'],
+				['end', DecorationPhase.HEAD_MERGE, 'Content', 'Layout'],
+				['start', DecorationPhase.BODY_MERGE, 'Content', 'Layout'],
+				['end', DecorationPhase.BODY_MERGE, 'Content', 'Layout'],
+				['end', DecorationPhase.DOCUMENT_MERGE, 'Content', 'Layout'],
+				['start', DecorationPhase.FRAGMENT_COLLECTION, 'Content', 'Layout'],
+				['end', DecorationPhase.FRAGMENT_COLLECTION, 'Content', 'Layout']
+			]
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.tests.decorators
+
+import nz.net.ultraq.thymeleaf.LayoutDialect
+import nz.net.ultraq.thymeleaf.decorators.ResourceHint
+import nz.net.ultraq.thymeleaf.models.ModelBuilder
+
+import org.thymeleaf.TemplateEngine
+import org.thymeleaf.templatemode.TemplateMode
+import spock.lang.Specification
+
+/**
+ * Tests for finding the resource hints of a page.
+ *
+ * @author zhanhb
+ */
+class ResourceHintTests extends Specification {
+
+	private ModelBuilder modelBuilder
+
+	def setup() {
+		def templateEngine = new TemplateEngine(
+			additionalDialects: [
+				new LayoutDialect()
+			]
+		)
+		def modelFactory = templateEngine.configuration.getModelFactory(TemplateMode.HTML)
+		modelBuilder = new ModelBuilder(modelFactory, templateEngine.configuration.elementDefinitions, TemplateMode.HTML)
+	}
+
+	def "Finds stylesheets, scripts and preloads in the head"() {
+		given:
+			def model = modelBuilder.build {
+				html {
+					head {
+						meta(charset: 'UTF-8')
+						link(rel: 'stylesheet', href: 'main.css')
+						link(rel: 'preload', href: 'font.woff2', 'as': 'font', crossorigin: '')
+						link(rel: 'icon', href: 'favicon.ico')
+						script(src: 'main.js')
+						script('var inline = true;')
+						script(src: 'main.js')
+						noscript {
+							link(rel: 'stylesheet', href: 'noscript.css')
+						}
+					}
+					body {
+						script(src: 'body.js')
+					}
+				}
+			}
+
+		when:
+			def hints = ResourceHint.findHints(model)
+
+		then:
+			hints == [
+				new ResourceHint('main.css', 'style', null),
+				new ResourceHint('font.woff2', 'font', ''),
+				new ResourceHint('main.js', 'script', null)
+			]
+	}
+
+	def "Announces module scripts as module preloads"() {
+		given:
+			def model = modelBuilder.build {
+				head {
+					script(type: 'module', src: 'app.mjs')
+					link(rel: 'modulepreload', href: 'lib.mjs')
+					script(src: 'classic.js')
+				}
+			}
+
+		when:
+			def hints = ResourceHint.findHints(model)
+
+		then:
+			hints == [
+				new ResourceHint('app.mjs', ResourceHint.MODULE_PRELOAD, 'script', null),
+				new ResourceHint('lib.mjs', ResourceHint.MODULE_PRELOAD, 'script', null),
+				new ResourceHint('classic.js', ResourceHint.PRELOAD, 'script', null)
+			]
+	}
+
+	def "Skips elements that will be processed"() {
+		given:
+			def model = modelBuilder.build {
+				head {
+					link(rel: 'stylesheet', href: 'maybe.css', 'th:if': '${condition}')
+					script(src: 'removed.js', 'th:remove': 'all')
+					script(src: 'fallback.js', 'th:src': '@{/app.js}')
+					link(rel: 'stylesheet', href: 'static.css')
+				}
+			}
+
+		when:
+			def hints = ResourceHint.findHints(model)
+
+		then:
+			hints == [
+				new ResourceHint('static.css', 'style', null)
+			]
+	}
+
+	def "Formats hints as Link header values"() {
+		expect:
+			new ResourceHint('main.css', 'style', null).toLinkHeader() == '<main.css>; rel=preload; as=style'
+			new ResourceHint('font.woff2', 'font', '').toLinkHeader() == '<font.woff2>; rel=preload; as=font; crossorigin'
+			new ResourceHint('app.js', 'script', 'use-credentials').toLinkHeader() == '<app.js>; rel=preload; as=script; crossorigin=use-credentials'
+			new ResourceHint('app.mjs', ResourceHint.MODULE_PRELOAD, 'script', null).toLinkHeader() == '<app.mjs>; rel=modulepreload; as=script'
+	}
+}
@@ -17,6 +17,7 @@
 package nz.net.ultraq.thymeleaf.tests.decorators.html
 
 import nz.net.ultraq.thymeleaf.LayoutDialect
+import nz.net.ultraq.thymeleaf.decorators.SortingStrategy
 import nz.net.ultraq.thymeleaf.decorators.html.HtmlHeadDecorator
 import nz.net.ultraq.thymeleaf.decorators.strategies.AppendingStrategy
 import nz.net.ultraq.thymeleaf.models.ModelBuilder
@@ -24,6 +25,7 @@ import nz.net.ultraq.thymeleaf.models.ModelBuilder
 import org.thymeleaf.TemplateEngine
 import org.thymeleaf.context.ITemplateContext
 import org.thymeleaf.dialect.IProcessorDialect
+import org.thymeleaf.model.IModel
 import org.thymeleaf.standard.StandardDialect
 import org.thymeleaf.templatemode.TemplateMode
 import spock.lang.Specification
@@ -92,4 +94,29 @@ class HtmlHeadDecoratorTests extends Specification {
 			contentOrig == content.cloneModel()
 			layoutOrig == layout.cloneModel()
 	}
+
+	def "Other sorting strategies are given children they can modify"() {
+		given:
+			def content = modelBuilder.build {
+				head {
+					script(src: 'content-script.js')
+				}
+			}
+			def layout = modelBuilder.build {
+				head {
+					script(src: 'common-script.js')
+				}
+			}
+			def sortingStrategy = { IModel headModel, IModel childModel ->
+				childModel.replace(0, childModel.get(0))
+				return headModel.size() - 1
+			} as SortingStrategy
+
+		when:
+			def result = new HtmlHeadDecorator(mockContext, sortingStrategy).decorate(layout, content)
+
+		then:
+			notThrown(UnsupportedOperationException)
+			result.findIndexOf { event -> event.isOpeningElementOf('script') && event.getAttributeValue('src') == 'content-script.js' } != -1
+	}
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.tests.decorators.strategies
+
+import nz.net.ultraq.thymeleaf.LayoutDialect
+import nz.net.ultraq.thymeleaf.decorators.strategies.DeduplicatingStrategy
+import nz.net.ultraq.thymeleaf.models.ModelBuilder
+
+import org.thymeleaf.TemplateEngine
+import org.thymeleaf.templatemode.TemplateMode
+import spock.lang.Specification
+
+/**
+ * Test the results of the deduplicating strategy.
+ *
+ * @author zhanhb
+ */
+class DeduplicatingStrategyTest extends Specification {
+
+	private ModelBuilder modelBuilder
+	private DeduplicatingStrategy deduplicatingStrategy = new DeduplicatingStrategy()
+
+	def setup() {
+		def templateEngine = new TemplateEngine(
+			additionalDialects: [
+				new LayoutDialect()
+			]
+		)
+		def modelFactory = templateEngine.configuration.getModelFactory(TemplateMode.HTML)
+
+		modelBuilder = new ModelBuilder(modelFactory, templateEngine.configuration.elementDefinitions, TemplateMode.HTML)
+	}
+
+	def "Elements declaring a resource already in the head are discarded without changing the head"() {
+		given:
+			def headModel = modelBuilder.build {
+				head {
+					meta(name: 'description', content: 'Layout page')
+					script(src: 'main.js')
+				}
+			}
+			def original = headModel.cloneModel()
+			def description = modelBuilder.build {
+				meta(name: 'description', content: 'Content page')
+			}
+
+		when:
+			def result = deduplicatingStrategy.findPositionForModel(headModel, description)
+
+		then:
+			result == -1
+			headModel == original
+	}
+
+	def "Elements declaring other resources are appended"() {
+		given:
+			def headModel = modelBuilder.build {
+				head {
+					script(src: 'main.js')
+				}
+			}
+			def script = modelBuilder.build {
+				script(src: 'other.js')
+			}
+
+		expect:
+			deduplicatingStrategy.findPositionForModel(headModel, script) == headModel.size() - 1
+	}
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.tests.decorators.strategies
+
+import nz.net.ultraq.thymeleaf.LayoutDialect
+import nz.net.ultraq.thymeleaf.decorators.SortingStrategy
+import nz.net.ultraq.thymeleaf.decorators.html.HtmlHeadDecorator
+import nz.net.ultraq.thymeleaf.decorators.strategies.AppendingRespectLayoutTitleStrategy
+import nz.net.ultraq.thymeleaf.decorators.strategies.AppendingStrategy
+import nz.net.ultraq.thymeleaf.decorators.strategies.GroupingRespectLayoutTitleStrategy
+import nz.net.ultraq.thymeleaf.decorators.strategies.GroupingStrategy
+import nz.net.ultraq.thymeleaf.internal.HeadChildModels
+import nz.net.ultraq.thymeleaf.models.ModelBuilder
+
+import org.thymeleaf.TemplateEngine
+import org.thymeleaf.context.ITemplateContext
+import org.thymeleaf.dialect.IProcessorDialect
+import org.thymeleaf.model.IModel
+import org.thymeleaf.model.IModelFactory
+import org.thymeleaf.standard.StandardDialect
+import org.thymeleaf.templatemode.TemplateMode
+import spock.lang.Specification
+import spock.lang.Unroll
+
+/**
+ * Checks that the single-pass {@code <head>} merges of the built-in strategies
+ * match what inserting each element one at a time produces.
+ *
+ * @author zhanhb
+ */
+class HeadChildModelsTests extends Specification {
+
+	private ITemplateContext mockContext
+	private IModelFactory modelFactory
+	private ModelBuilder modelBuilder
+
+	/**
+	 * Set up, create a template engine and model builder.
+	 */
+	def setup() {
+
+		def templateEngine = new TemplateEngine(
+			additionalDialects: [
+				new LayoutDialect()
+			]
+		)
+		modelFactory = templateEngine.configuration.getModelFactory(TemplateMode.HTML)
+
+		modelBuilder = new ModelBuilder(modelFactory, templateEngine.configuration.elementDefinitions, TemplateMode.HTML)
+		mockContext = Mock(ITemplateContext)
+		mockContext.configuration >> templateEngine.configuration
+		mockContext.modelFactory >> modelFactory
+		mockContext.templateMode >> TemplateMode.HTML
+		mockContext.metaClass {
+			getPrefixForDialect = { Class<IProcessorDialect> dialectClass ->
+				return dialectClass == StandardDialect ? 'th' :
+				       dialectClass == LayoutDialect ? 'layout' :
+				       'mock-prefix'
+			}
+		}
+	}
+
+	/**
+	 * Put each child of the given element on a line of its own.
+	 *
+	 * @param model
+	 * @return A copy of the model with whitespace between its children.
+	 */
+	private IModel indent(IModel model) {
+		def result = modelFactory.createModel(model.first())
+		def iterator = model.childModelIterator()
+		while (iterator.hasNext()) {
+			result.add(modelFactory.createText('\n\t'))
+			result.addModel(iterator.next().cloneModel())
+		}
+		result.add(modelFactory.createText('\n'))
+		result.add(model.last())
+		return result
+	}
+
+	/**
+	 * Return the immediate children of the given element.
+	 *
+	 * @param model
+	 * @return List of child models.
+	 */
+	private static List<IModel> children(IModel model) {
+		def children = []
+		def iterator = model.childModelIterator()
+		while (iterator.hasNext()) {
+			children << iterator.next()
+		}
+		return children
+	}
+
+	/**
+	 * Check that the strategy merges the content {@code <head>} into the layout
+	 * one all at once, and that the result is the same as inserting each child
+	 * one at a time.
+	 *
+	 * @param strategy
+	 * @param layout
+	 * @param content
+	 * @return {@code true} if the merges were done all at once and match.
+	 */
+	private boolean mergesMatch(SortingStrategy strategy, IModel layout, IModel content) {
+		def sequentialStrategy = { headModel, childModel ->
+			strategy.findPositionForModel(headModel, childModel)
+		} as SortingStrategy
+		return HeadChildModels.merge(strategy, layout, children(content), modelFactory) != null &&
+			new HtmlHeadDecorator(mockContext, strategy).decorate(layout.cloneModel(), content) ==
+				new HtmlHeadDecorator(mockContext, sequentialStrategy).decorate(layout.cloneModel(), content)
+	}
+
+	@Unroll
+	def "Merging all at once matches merging one at a time - #strategy.class.simpleName"(SortingStrategy strategy) {
+		given:
+			def layouts = [
+				modelBuilder.build {
+					head()
+				},
+				indent(modelBuilder.build {
+					head {
+						meta(charset: 'UTF-8')
+						link(rel: 'stylesheet', href: 'layout.css')
+						script(src: 'layout.js')
+						script('var inline = true;')
+					}
+				}),
+				modelBuilder.build {
+					head {
+						meta(charset: 'UTF-8')
+						script(src: 'layout.js')
+					}
+				}
+			]
+			def content = indent(modelBuilder.build {
+				head {
+					meta(name: 'description', content: 'Content page')
+					script('var inline = true;')
+					link(rel: 'stylesheet', href: 'content.css')
+					style('body { color: black; }')
+					script('var inline = true;')
+					link(rel: 'canonical', href: 'http://example.com/')
+				}
+			})
+
+		expect:
+			layouts.every { layout ->
+				mergesMatch(strategy, layout, content)
+			}
+
+		where:
+			strategy << [
+				new AppendingStrategy(),
+				new AppendingRespectLayoutTitleStrategy(),
+				new GroupingStrategy(),
+				new GroupingRespectLayoutTitleStrategy()
+			]
+	}
+
+	@Unroll
+	def "Minified heads are merged all at once - #strategy.class.simpleName"(SortingStrategy strategy) {
+		given:
+			def layout = modelBuilder.build {
+				head {
+					meta(charset: 'UTF-8')
+					link(rel: 'stylesheet', href: 'layout.css')
+					script(src: 'layout.js')
+				}
+			}
+			def content = modelBuilder.build {
+				head {
+					link(rel: 'stylesheet', href: 'content.css')
+					script(src: 'content.js')
+					meta(name: 'description', content: 'Content page')
+				}
+			}
+
+		expect:
+			mergesMatch(strategy, layout, content)
+			mergesMatch(strategy, layout, indent(content))
+
+		where:
+			strategy << [
+				new AppendingStrategy(),
+				new AppendingRespectLayoutTitleStrategy(),
+				new GroupingStrategy(),
+				new GroupingRespectLayoutTitleStrategy()
+			]
+	}
+
+	@Unroll
+	def "Heads with repeated elements are merged all at once - #strategy.class.simpleName"(SortingStrategy strategy) {
+		given:
+			def layout = modelBuilder.build {
+				head {
+					meta(charset: 'UTF-8')
+					script(src: 'shared.js')
+					link(rel: 'stylesheet', href: 'shared.css')
+					script(src: 'layout.js')
+					script(src: 'shared.js')
+				}
+			}
+			def content = modelBuilder.build {
+				head {
+					meta(charset: 'UTF-8')
+					script(src: 'shared.js')
+					link(rel: 'stylesheet', href: 'shared.css')
+					script('var inline = true;')
+				}
+			}
+
+		expect:
+			mergesMatch(strategy, layout, content)
+			mergesMatch(strategy, indent(layout), indent(content))
+
+		where:
+			strategy << [
+				new AppendingStrategy(),
+				new AppendingRespectLayoutTitleStrategy(),
+				new GroupingStrategy(),
+				new GroupingRespectLayoutTitleStrategy()
+			]
+	}
+
+	def "Subclasses of the built-in strategies are merged one at a time"() {
+		given:
+			def layout = modelBuilder.build {
+				head {
+					script(src: 'layout.js')
+				}
+			}
+			def content = modelBuilder.build {
+				head {
+					script(src: 'content.js')
+				}
+			}
+			def strategy = new AppendingRespectLayoutTitleStrategy() {
+				@Override
+				int findPositionForModel(IModel headModel, IModel childModel) {
+					return 1
+				}
+			}
+
+		expect:
+			HeadChildModels.merge(strategy, layout, children(content), modelFactory) == null
+			HeadChildModels.merge(new AppendingRespectLayoutTitleStrategy(), layout, children(content), modelFactory) != null
+	}
+
+	def "Groups end after the last child of the same type"() {
+		given:
+			def headModel = modelBuilder.build {
+				head {
+					meta(charset: 'UTF-8')
+					link(rel: 'stylesheet', href: 'main.css')
+					script(src: 'main.js')
+					title('Page title')
+				}
+			}
+			def script = modelBuilder.build {
+				script(src: 'other.js')
+			}
+			def style = modelBuilder.build {
+				style('body { color: black; }')
+			}
+
+		expect:
+			HeadChildModels.findGroupPosition(headModel, script) == headModel.findIndexOf { event ->
+				event.isClosingElementOf('script')
+			} + 1
+			HeadChildModels.findGroupPosition(headModel, style) == 1
+	}
+
+	def "Finds children declaring the same resource"() {
+		given:
+			def headModel = modelBuilder.build {
+				head {
+					meta(charset: 'UTF-8')
+					link(rel: 'StyleSheet', href: 'main.css')
+					script(src: 'main.js')
+				}
+			}
+
+		expect:
+			HeadChildModels.declaresResourceOf(headModel, modelBuilder.build { meta(charset: 'ISO-8859-1') })
+			HeadChildModels.declaresResourceOf(headModel, modelBuilder.build { link(rel: 'stylesheet', href: 'main.css') })
+			HeadChildModels.declaresResourceOf(headModel, modelBuilder.build { script(src: 'main.js') })
+			!HeadChildModels.declaresResourceOf(headModel, modelBuilder.build { script(src: 'other.js') })
+			!HeadChildModels.declaresResourceOf(headModel, modelBuilder.build { script('var inline = true;') })
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package nz.net.ultraq.thymeleaf.tests.fragments
+
+import nz.net.ultraq.thymeleaf.fragments.FragmentCollection
+
+import org.thymeleaf.model.IModel
+import spock.lang.Specification
+
+/**
+ * Tests for the fragment collections linked across nesting levels.
+ *
+ * @author zhanhb
+ */
+class FragmentCollectionTests extends Specification {
+
+	def "Fragments of the levels above can be looked up"() {
+		given:
+			def model = Mock(IModel)
+			def top = new FragmentCollection(null, [top: [model]], true)
+			def level = new FragmentCollection(top, [other: []], false)
+
+		expect:
+			level.get('top') == [model]
+			level.containsKey('top')
+			level.containsKey('other')
+			!level.containsKey('missing')
+			level.keySet() == ['other', 'top'] as Set
+	}
+
+	def "The list of the level above is shared if this level has no fragments of that name"() {
+		given:
+			def list = [Mock(IModel)]
+			def top = new FragmentCollection(null, [name: list], true)
+
+		expect:
+			new FragmentCollection(top, [:], false).get('name').is(list)
+			new FragmentCollection(top, [name: []], false).get('name').is(list)
+	}
+
+	def "Fragments of both levels are combined, reversed unless from decoration"() {
+		given:
+			def model1 = Mock(IModel)
+			def model2 = Mock(IModel)
+			def top = new FragmentCollection(null, [name: [model2]], true)
+
+		expect:
+			new FragmentCollection(top, [name: [model1]], true).get('name') == [model1, model2]
+			new FragmentCollection(top, [name: [model1]], false).get('name') == [model2, model1]
+	}
+}
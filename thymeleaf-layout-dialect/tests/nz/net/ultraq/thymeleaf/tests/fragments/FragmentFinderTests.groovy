@@ -18,6 +18,7 @@ package nz.net.ultraq.thymeleaf.tests.fragments
 
 import nz.net.ultraq.thymeleaf.LayoutDialect
 import nz.net.ultraq.thymeleaf.fragments.FragmentFinder
+import nz.net.ultraq.thymeleaf.fragments.FragmentUsage
 import nz.net.ultraq.thymeleaf.models.ModelBuilder
 
 import org.thymeleaf.TemplateEngine
@@ -68,4 +69,63 @@ class FragmentFinderTests extends Specification {
 			fragments.containsKey('paragraph-fragment')
 			fragments.containsKey('footer-fragment')
 	}
+
+	def "Fragments outlive changes to the searched model"() {
+		given:
+			def source = modelBuilder.build {
+				main {
+					div('layout:collect': 'scripts') {
+						script('layout:define': 'scripts', src: 'main.js')
+					}
+				}
+			}
+			def expected = source.cloneModel()
+
+		when:
+			def fragments = fragmentFinder.findFragments(source)
+			source.reset()
+
+		then:
+			fragments.scripts.size() == 2
+			fragments.scripts[0].size() == expected.size() - 2
+			fragments.scripts[0].get(0) == expected.get(1)
+			fragments.scripts[1].get(0) == expected.get(2)
+			fragments.scripts[1].cloneModel().size() == 2
+	}
+
+	def "Skips fragments the layout doesn't use, unless templates are brought in"() {
+		given:
+			def layout = modelBuilder.build {
+				main {
+					header('layout:fragment': 'header-fragment')
+				}
+			}
+			def usage = new FragmentUsage(layout, 'layout', 'th')
+			def source = modelBuilder.build {
+				main {
+					header('layout:fragment': 'header-fragment')
+					footer('layout:fragment': 'footer-fragment')
+				}
+			}
+			def nested = modelBuilder.build {
+				main {
+					section('layout:define': 'unused-fragment') {
+						header('layout:fragment': 'header-fragment')
+					}
+				}
+			}
+			def including = modelBuilder.build {
+				main {
+					header('layout:fragment': 'header-fragment') {
+						div('th:replace': 'common :: nav')
+					}
+					footer('layout:fragment': 'footer-fragment')
+				}
+			}
+
+		expect:
+			fragmentFinder.findFragments(source, usage).keySet() == ['header-fragment'] as Set
+			fragmentFinder.findFragments(nested, usage).keySet() == ['header-fragment'] as Set
+			fragmentFinder.findFragments(including, usage).keySet() == ['header-fragment', 'footer-fragment'] as Set
+	}
 }
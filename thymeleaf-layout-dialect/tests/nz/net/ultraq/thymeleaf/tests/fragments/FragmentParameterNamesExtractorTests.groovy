@@ -18,6 +18,7 @@ package nz.net.ultraq.thymeleaf.tests.fragments
 
 import nz.net.ultraq.thymeleaf.fragments.FragmentParameterNamesExtractor
 
+import org.thymeleaf.TemplateEngine
 import spock.lang.Specification
 
 /**
@@ -65,4 +66,16 @@ class FragmentParameterNamesExtractorTests extends Specification {
 		then:
 			parameterNames == ['param1', 'param2']
 	}
+
+	def "Names kept for a configuration are copied for each extraction"() {
+		given:
+			def extractor = new FragmentParameterNamesExtractor(new TemplateEngine().configuration)
+			def fragmentDefinition = 'cached-definition(param1, param2)'
+		when:
+			def parameterNames = extractor.extract(fragmentDefinition)
+			parameterNames.add('param3')
+		then:
+			extractor.extract(fragmentDefinition) == ['param1', 'param2']
+			!extractor.extract(fragmentDefinition).is(extractor.extract(fragmentDefinition))
+	}
 }
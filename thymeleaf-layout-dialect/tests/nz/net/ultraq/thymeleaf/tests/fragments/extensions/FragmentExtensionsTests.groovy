@@ -16,11 +16,14 @@
 
 package nz.net.ultraq.thymeleaf.tests.fragments.extensions
 
-import org.thymeleaf.cache.ICacheEntryValidity
-import org.thymeleaf.context.ITemplateContext
+import nz.net.ultraq.thymeleaf.context.LayoutRenderState
 import nz.net.ultraq.thymeleaf.fragments.extensions.FragmentExtensions
 
+import org.thymeleaf.cache.ICacheEntryValidity
+import org.thymeleaf.context.ITemplateContext
 import org.thymeleaf.engine.TemplateData
+import org.thymeleaf.model.IModel
+import org.thymeleaf.processor.element.IElementModelStructureHandler
 import org.thymeleaf.templatemode.TemplateMode
 import org.thymeleaf.templateresource.ITemplateResource
 import spock.lang.Specification
@@ -50,7 +53,7 @@ class FragmentExtensionsTests extends Specification {
 		given:
 			context.templateStack >> []
 			def existingMap = [:]
-			context.getVariable(FragmentExtensions.FRAGMENT_COLLECTION_KEY) >> existingMap
+			context.getVariable(LayoutRenderState.VARIABLE_NAME) >> new LayoutRenderState(existingMap, null, null)
 
 		when:
 			def map = context.fragmentCollection
@@ -62,7 +65,7 @@ class FragmentExtensionsTests extends Specification {
 	def "A new map is always returned when template stack size == 1 and in decorator call"() {
 		given:
 			def existingMap = [:]
-			context.getVariable(FragmentExtensions.FRAGMENT_COLLECTION_KEY) >> existingMap
+			context.getVariable(LayoutRenderState.VARIABLE_NAME) >> new LayoutRenderState(existingMap, null, null)
 			context.templateStack >> [
 				new TemplateData('template', [] as Set, Mock(ITemplateResource), TemplateMode.HTML, Mock(ICacheEntryValidity))
 			]
@@ -73,4 +76,18 @@ class FragmentExtensionsTests extends Specification {
 		then:
 			!map.is(existingMap)
 	}
+
+	def "The fragment collection is still set under its deprecated name"() {
+		given:
+			context.templateStack >> []
+			def structureHandler = Mock(IElementModelStructureHandler)
+			def fragments = [fragment: [Mock(IModel)]]
+
+		when:
+			FragmentExtensions.setLocalFragmentCollection(structureHandler, context, fragments)
+
+		then:
+			1 * structureHandler.setLocalVariable(LayoutRenderState.VARIABLE_NAME, { it instanceof LayoutRenderState })
+			1 * structureHandler.setLocalVariable(FragmentExtensions.FRAGMENT_COLLECTION_KEY, { it.fragment == fragments.fragment })
+	}
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.tests.internal
+
+import nz.net.ultraq.thymeleaf.internal.ConfigurationCache
+
+import org.thymeleaf.TemplateEngine
+import org.thymeleaf.cache.StandardCacheManager
+import spock.lang.Specification
+
+/**
+ * Tests for the per-configuration cache of values worked out from template
+ * text.
+ *
+ * @author zhanhb
+ */
+class ConfigurationCacheTests extends Specification {
+
+	private ConfigurationCache<String, String> cache = new ConfigurationCache<>()
+
+	def "Values are kept for the configuration they were cached for"() {
+		given:
+			def configuration = new TemplateEngine().configuration
+			def otherConfiguration = new TemplateEngine().configuration
+
+		when:
+			def value = cache.put(configuration, 'key', new String('value'))
+
+		then:
+			cache.get(configuration, 'key').is(value)
+			cache.put(configuration, 'key', 'other value').is(value)
+			cache.get(otherConfiguration, 'key') == null
+	}
+
+	def "Values aren't kept past the limit"() {
+		given:
+			def configuration = new TemplateEngine().configuration
+			(0..<ConfigurationCache.MAX_ENTRIES).each { index ->
+				cache.put(configuration, "key${index}" as String, 'value')
+			}
+
+		when:
+			def value = cache.put(configuration, 'one too many', 'value')
+
+		then:
+			value == 'value'
+			cache.get(configuration, 'one too many') == null
+	}
+
+	def "Values aren't kept if the expression cache is turned off"() {
+		given:
+			def configuration = new TemplateEngine(
+				cacheManager: new StandardCacheManager(expressionCacheMaxSize: 0)
+			).configuration
+
+		when:
+			cache.put(configuration, 'key', 'value')
+
+		then:
+			cache.get(configuration, 'key') == null
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.tests.models
+
+import nz.net.ultraq.thymeleaf.LayoutDialect
+import nz.net.ultraq.thymeleaf.models.DocumentSkeleton
+import nz.net.ultraq.thymeleaf.models.TemplateModelFinder
+import nz.net.ultraq.thymeleaf.tests.MapTemplateResolver
+
+import org.thymeleaf.TemplateEngine
+import org.thymeleaf.cache.AlwaysValidCacheEntryValidity
+import org.thymeleaf.cache.NonCacheableCacheEntryValidity
+import org.thymeleaf.context.EngineContext
+import org.thymeleaf.engine.TemplateData
+import org.thymeleaf.templatemode.TemplateMode
+import org.thymeleaf.templateresource.StringTemplateResource
+import spock.lang.Specification
+
+/**
+ * Tests for the document skeletons kept for content templates.
+ *
+ * @author zhanhb
+ */
+class DocumentSkeletonTests extends Specification {
+
+	private TemplateEngine templateEngine = new TemplateEngine(
+		additionalDialects: [
+			new LayoutDialect()
+		],
+		templateResolver: new MapTemplateResolver(MapTemplateResolver.CONTENT_AND_LAYOUT)
+	)
+
+	/**
+	 * Return a context for processing the content template, using the template
+	 * data of Thymeleaf's cached copy of it.
+	 *
+	 * @return Context for the cached content template.
+	 */
+	private EngineContext contentContext() {
+
+		def bootstrap = createContext(new TemplateData('Content', null, new StringTemplateResource(''),
+			TemplateMode.HTML, AlwaysValidCacheEntryValidity.INSTANCE))
+		return createContext(new TemplateModelFinder(bootstrap).findTemplate('Content').templateData)
+	}
+
+	private EngineContext createContext(TemplateData templateData) {
+
+		return new EngineContext(templateEngine.configuration, templateData, [:], Locale.ENGLISH, [:])
+	}
+
+	def "The root element is the first element of the template"() {
+		when:
+			def skeleton = DocumentSkeleton.forTemplate(contentContext())
+
+		then:
+			skeleton.rootElement.elementCompleteName == 'html'
+			skeleton.rootElement.hasAttribute('layout', 'decorate')
+	}
+
+	def "Skeletons are kept for as long as the template is cached"() {
+		given:
+			def first = DocumentSkeleton.forTemplate(contentContext())
+
+		when:
+			def second = DocumentSkeleton.forTemplate(contentContext())
+			templateEngine.clearTemplateCache()
+			def third = DocumentSkeleton.forTemplate(contentContext())
+
+		then:
+			second.is(first)
+			!third.is(first)
+	}
+
+	def "Skeletons of templates that can't be cached aren't kept"() {
+		given:
+			def context = createContext(new TemplateData('Content', null, new StringTemplateResource(''),
+				TemplateMode.HTML, NonCacheableCacheEntryValidity.INSTANCE))
+
+		expect:
+			!DocumentSkeleton.forTemplate(context).is(DocumentSkeleton.forTemplate(context))
+	}
+}
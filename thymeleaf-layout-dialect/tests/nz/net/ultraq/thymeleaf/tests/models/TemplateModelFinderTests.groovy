@@ -0,0 +1,137 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.tests.models
+
+import nz.net.ultraq.thymeleaf.LayoutDialect
+import nz.net.ultraq.thymeleaf.expressions.ExpressionProcessor
+import nz.net.ultraq.thymeleaf.models.TemplateModelFinder
+import nz.net.ultraq.thymeleaf.tests.MapTemplateResolver
+
+import org.thymeleaf.TemplateEngine
+import org.thymeleaf.cache.AlwaysValidCacheEntryValidity
+import org.thymeleaf.context.EngineContext
+import org.thymeleaf.engine.TemplateData
+import org.thymeleaf.templatemode.TemplateMode
+import org.thymeleaf.templateresource.StringTemplateResource
+import spock.lang.Specification
+import spock.lang.Unroll
+
+/**
+ * Tests for finding fragments through the fragment index, which has to pick
+ * out the same fragments as the selectors Thymeleaf would otherwise parse the
+ * template with.
+ *
+ * @author zhanhb
+ */
+class TemplateModelFinderTests extends Specification {
+
+	private static final Map<String, String> TEMPLATES = [
+		Fragments: '''
+			<html xmlns:layout="http://www.ultraq.net.nz/thymeleaf/layout">
+			<body>
+				<div layout:fragment="frag(a,b)">Parameters</div>
+				<div layout:fragment="spaced (a)">Spaced parameters</div>
+				<div layout:fragment="plain">Plain</div>
+				<div data-layout-fragment="data">Data attribute</div>
+				<div layout:fragment="outer">
+					<div layout:fragment="outer">Nested</div>
+				</div>
+				<div layout:fragment="outer">Repeated</div>
+			</body>
+			</html>
+		'''.stripIndent().trim()
+	]
+
+	private TemplateEngine templateEngine
+	private EngineContext context
+
+	/**
+	 * Set up, create a template engine and a context for processing the
+	 * fragments template.
+	 */
+	def setup() {
+
+		templateEngine = new TemplateEngine(
+			additionalDialects: [
+				new LayoutDialect()
+			],
+			templateResolver: new MapTemplateResolver(TEMPLATES)
+		)
+		context = new EngineContext(templateEngine.configuration,
+			new TemplateData('Fragments', null, new StringTemplateResource(''), TemplateMode.HTML, AlwaysValidCacheEntryValidity.INSTANCE),
+			[:], Locale.ENGLISH, [:])
+	}
+
+	@Unroll
+	def "Indexed fragments match the selected ones for #expression"(String expression) {
+		given:
+			def fragmentExpression = new ExpressionProcessor(context).parseFragmentExpression(expression)
+			def finder = new TemplateModelFinder(context)
+
+		when:
+			def fragment = finder.findIndexedFragment(fragmentExpression)
+
+		then:
+			fragment.cloneModel().toString() == finder.findFragment(fragmentExpression).toString()
+
+		where:
+			expression << [
+				'~{Fragments :: frag}',
+				'~{Fragments :: frag(1, 2)}',
+				'~{Fragments :: spaced}',
+				'~{Fragments :: plain}',
+				'~{::plain}',
+				'~{this :: plain}',
+				'~{Fragments :: data}',
+				'~{Fragments :: outer}',
+				'~{Fragments :: missing}',
+				'~{Fragments}'
+			]
+	}
+
+	def "Fragment names only match up to their parameters"() {
+		given:
+			def finder = new TemplateModelFinder(context)
+
+		expect:
+			find(finder, '~{Fragments :: frag}').contains('Parameters')
+			find(finder, '~{Fragments :: spaced}').contains('Spaced parameters')
+			find(finder, '~{Fragments :: fra}').isEmpty()
+			find(finder, '~{Fragments :: space}').isEmpty()
+	}
+
+	def "Fragments are kept for as long as the template is cached"() {
+		given:
+			def fragmentExpression = new ExpressionProcessor(context).parseFragmentExpression('~{Fragments :: plain}')
+			def first = new TemplateModelFinder(context).findIndexedFragment(fragmentExpression)
+
+		when:
+			def second = new TemplateModelFinder(context).findIndexedFragment(fragmentExpression)
+			templateEngine.clearTemplateCache()
+			def third = new TemplateModelFinder(context).findIndexedFragment(fragmentExpression)
+
+		then:
+			second.is(first)
+			!third.is(first)
+			third.cloneModel().toString() == first.cloneModel().toString()
+	}
+
+	private String find(TemplateModelFinder finder, String expression) {
+		return finder.findIndexedFragment(new ExpressionProcessor(context).parseFragmentExpression(expression))
+			.cloneModel().toString().trim()
+	}
+}
@@ -107,4 +107,17 @@ class VariableDeclarationMergerTests extends Specification {
 		then:
 			result == source
 	}
+
+	def "Repeated source names override repeated target names in order"() {
+		given:
+			def target = 'name=${value1},name=${value2}'
+			def source = 'name=${newValue1},other=${value3},name=${newValue2},name=${newValue3}'
+
+		when:
+			def result = merger.merge(target, source)
+
+		then:
+			result == 'name=${newValue1},name=${newValue2},other=${value3},name=${newValue3}'
+			merger.merge(target, source) == result
+	}
 }
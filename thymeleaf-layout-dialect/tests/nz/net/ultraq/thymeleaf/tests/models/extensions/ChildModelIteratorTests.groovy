@@ -75,4 +75,45 @@ class ChildModelIteratorTests extends Specification {
 			childModelIterator.next().equalsIgnoreWhitespace(pModel2)
 			!childModelIterator.hasNext()
 	}
+
+	def "Children are copies that can be modified"() {
+		given:
+			def model = modelBuilder.build {
+				div(class: 'content') {
+					p('Test paragraph')
+				}
+			}
+
+		when:
+			def child = model.childModelIterator().next()
+			child.remove(0)
+
+		then:
+			notThrown(UnsupportedOperationException)
+			model.size() == 5
+	}
+
+	def "Children of a view iterator are read-only views that can be copied"() {
+		given:
+			def model = modelBuilder.build {
+				div(class: 'content') {
+					p('Test paragraph')
+				}
+			}
+
+		when:
+			def child = model.childModelViewIterator().next()
+			child.remove(0)
+
+		then:
+			thrown(UnsupportedOperationException)
+
+		when:
+			def copy = child.cloneModel()
+			copy.remove(0)
+
+		then:
+			notThrown(UnsupportedOperationException)
+			model.size() == 5
+	}
 }
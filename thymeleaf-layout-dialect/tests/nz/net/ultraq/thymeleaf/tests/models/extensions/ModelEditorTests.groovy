@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.tests.models.extensions
+
+import nz.net.ultraq.thymeleaf.LayoutDialect
+import nz.net.ultraq.thymeleaf.models.ModelBuilder
+import nz.net.ultraq.thymeleaf.models.extensions.ModelEditor
+
+import org.thymeleaf.TemplateEngine
+import org.thymeleaf.templatemode.TemplateMode
+import spock.lang.Specification
+
+/**
+ * Tests for the {@link ModelEditor} class.
+ * 
+ * @author zhanhb
+ */
+class ModelEditorTests extends Specification {
+
+	private ModelBuilder modelBuilder
+
+	/**
+	 * Set up, create a template engine.
+	 */
+	def setup() {
+
+		def templateEngine = new TemplateEngine(
+			additionalDialects: [
+				new LayoutDialect()
+			]
+		)
+		modelBuilder = new ModelBuilder(templateEngine.configuration.getModelFactory(TemplateMode.HTML),
+			templateEngine.configuration.elementDefinitions, TemplateMode.HTML)
+	}
+
+	def "Edits are made against the original positions"() {
+		given:
+			def model = modelBuilder.build {
+				div {
+					p('First paragraph')
+					hr(standalone: true)
+					p('Second paragraph')
+				}
+			}
+			def headerModel = modelBuilder.build {
+				h1('Title')
+			}
+			def footerModel = modelBuilder.build {
+				footer('Footer')
+			}
+
+		when:
+			new ModelEditor(model)
+				.removeModel(1)
+				.insertModel(1, headerModel)
+				.replaceModel(5, footerModel)
+				.apply()
+
+		then:
+			model.equalsIgnoreWhitespace(modelBuilder.build {
+				div {
+					h1('Title')
+					hr(standalone: true)
+					footer('Footer')
+				}
+			})
+	}
+
+	def "Insertions at the same position keep the order they were made in"() {
+		given:
+			def model = modelBuilder.build {
+				div()
+			}
+			def firstModel = modelBuilder.build {
+				p('First')
+			}
+			def secondModel = modelBuilder.build {
+				p('Second')
+			}
+
+		when:
+			new ModelEditor(model)
+				.insertModel(1, firstModel)
+				.insertModel(1, secondModel)
+				.apply()
+
+		then:
+			model.equalsIgnoreWhitespace(modelBuilder.build {
+				div {
+					p('First')
+					p('Second')
+				}
+			})
+	}
+}
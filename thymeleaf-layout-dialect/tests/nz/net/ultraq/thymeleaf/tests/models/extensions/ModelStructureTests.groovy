@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.tests.models.extensions
+
+import nz.net.ultraq.thymeleaf.LayoutDialect
+import nz.net.ultraq.thymeleaf.models.ModelBuilder
+import nz.net.ultraq.thymeleaf.models.extensions.ModelStructure
+
+import org.thymeleaf.TemplateEngine
+import org.thymeleaf.templatemode.TemplateMode
+import spock.lang.Specification
+
+/**
+ * Tests for the {@link ModelStructure} table.
+ * 
+ * @author zhanhb
+ */
+class ModelStructureTests extends Specification {
+
+	private ModelBuilder modelBuilder
+
+	/**
+	 * Set up, create a template engine.
+	 */
+	def setup() {
+
+		def templateEngine = new TemplateEngine(
+			additionalDialects: [
+				new LayoutDialect()
+			]
+		)
+		modelBuilder = new ModelBuilder(templateEngine.configuration.getModelFactory(TemplateMode.HTML),
+			templateEngine.configuration.elementDefinitions, TemplateMode.HTML)
+	}
+
+	def "Sizes match those found by walking the model"() {
+		given:
+			def model = modelBuilder.build {
+				section {
+					header {
+						h1('Test title')
+					}
+					div(class: 'content') {
+						p('Test paragraph')
+						hr(standalone: true)
+						p('Another test paragraph')
+					}
+				}
+			}
+
+		when:
+			def structure = ModelStructure.of(model)
+
+		then:
+			structure.size() == model.size()
+			(0..<model.size()).every { index ->
+				structure.sizeOfModelAt(index) == model.sizeOfModelAt(index)
+			}
+	}
+
+	def "Structures of mutable models are built afresh for each use"() {
+		given:
+			def model = modelBuilder.build {
+				div {
+					p('First paragraph')
+					p('Second paragraph')
+				}
+			}
+			def original = ModelStructure.of(model)
+
+		when:
+			model.remove(1)
+			model.remove(1)
+			model.remove(1)
+			def structure = ModelStructure.of(model)
+
+		then:
+			!structure.is(original)
+			!ModelStructure.of(model).is(structure)
+			structure.size() == model.size()
+			(0..<model.size()).every { index ->
+				structure.sizeOfModelAt(index) == model.sizeOfModelAt(index)
+			}
+	}
+}
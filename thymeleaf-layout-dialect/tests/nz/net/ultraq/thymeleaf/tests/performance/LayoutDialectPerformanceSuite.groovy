@@ -0,0 +1,202 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.tests.performance
+
+import nz.net.ultraq.thymeleaf.testing.JUnitTestExecutor
+
+import groovy.json.JsonOutput
+import groovy.transform.CompileStatic
+import java.lang.management.ManagementFactory
+import java.lang.reflect.Modifier
+import org.junit.Test
+import org.reflections.Reflections
+import org.reflections.scanners.SubTypesScanner
+import org.thymeleaf.TemplateEngine
+import org.thymeleaf.Thymeleaf
+import org.thymeleaf.context.IContext
+
+/**
+ * Runs every Thymeleaf testing file (.thtest) in the test directory a number of
+ * times against a warmed up template engine, recording the latency percentiles
+ * and bytes allocated of each one to a JSON report.  Files are run with the
+ * dialects of each test executor that checks them, so a file checked by more
+ * than one executor is measured once for each, and files that can't be
+ * processed, like those expecting an exception, are skipped.
+ * <p>
+ * The suite doesn't match the names that are run with the other tests, so it
+ * has to be asked for by name, eg:
+ * {@code ./mvnw test -Dtest=LayoutDialectPerformanceSuite}.  The following
+ * system properties adjust a run:
+ * <ul>
+ *   <li>{@code performance.warmup}: iterations of every file to run before
+ *       measuring, default 50</li>
+ *   <li>{@code performance.iterations}: iterations of each file to measure,
+ *       default 200</li>
+ *   <li>{@code performance.report}: where to write the report, default
+ *       {@code target/performance/thtest-report.json}</li>
+ * </ul>
+ *
+ * @author zhanhb
+ */
+class LayoutDialectPerformanceSuite {
+
+	static final int WARMUP_ITERATIONS = Integer.getInteger('performance.warmup', 50)
+	static final int ITERATIONS = Integer.getInteger('performance.iterations', 200)
+	static final String REPORT = System.getProperty('performance.report', 'target/performance/thtest-report.json')
+
+	/**
+	 * Return the scenarios of all the Thymeleaf test files run by the test
+	 * executors.
+	 *
+	 * @return List of scenarios, by executor and then by file name.
+	 */
+	static List<ThtestScenario> listScenarios() {
+
+		def executorClasses = new Reflections('nz.net.ultraq.thymeleaf.tests', new SubTypesScanner())
+			.getSubTypesOf(JUnitTestExecutor)
+			.findAll { executorClass -> !Modifier.isAbstract(executorClass.modifiers) }
+		return executorClasses.sort { executorClass -> executorClass.simpleName }
+			.collectMany { executorClass -> ThtestScenario.read(executorClass) }
+	}
+
+	/**
+	 * Create a template engine for the given scenario, with the dialects of the
+	 * test executor that runs it.
+	 *
+	 * @param scenario
+	 * @return New template engine.
+	 */
+	static TemplateEngine createTemplateEngine(ThtestScenario scenario) {
+
+		return new TemplateEngine(
+			dialects: scenario.dialects as Set,
+			templateResolver: new ThtestTemplateResolver(scenario)
+		)
+	}
+
+	/**
+	 * Return whether a scenario can be processed at all.
+	 *
+	 * @param templateEngine
+	 * @param scenario
+	 * @param context
+	 * @return {@code false} if processing the scenario throws an exception.
+	 */
+	static boolean canProcess(TemplateEngine templateEngine, ThtestScenario scenario, IContext context) {
+
+		try {
+			templateEngine.process(scenario.name, context)
+			return true
+		}
+		catch (Exception ignored) {
+			return false
+		}
+	}
+
+	@Test
+	void measureScenarios() {
+
+		def threadBean = ManagementFactory.threadMXBean
+		def allocationBean = threadBean instanceof com.sun.management.ThreadMXBean &&
+			threadBean.threadAllocatedMemorySupported ? threadBean : null
+		if (allocationBean) {
+			allocationBean.threadAllocatedMemoryEnabled = true
+		}
+
+		def scenarios = listScenarios()
+		def templateEngines = scenarios.collectEntries { scenario -> [(scenario): createTemplateEngine(scenario)] }
+		def contexts = scenarios.collectEntries { scenario -> [(scenario): scenario.createContext()] }
+		scenarios = scenarios.findAll { scenario -> canProcess(templateEngines[scenario], scenario, contexts[scenario]) }
+
+		// Warm up all of the scenarios before measuring any of them, so that each
+		// is measured against code that has been through the JIT compiler
+		scenarios.each { scenario ->
+			process(templateEngines[scenario], scenario.name, contexts[scenario], WARMUP_ITERATIONS)
+		}
+
+		def threadId = Thread.currentThread().id
+		def results = scenarios.collect { scenario ->
+			def allocatedBefore = allocationBean?.getThreadAllocatedBytes(threadId)
+			def latencies = process(templateEngines[scenario], scenario.name, contexts[scenario], ITERATIONS)
+			def allocated = allocationBean ? allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore : null
+			Arrays.sort(latencies)
+			return [
+				scenario:          scenario.name,
+				configuration:     scenario.configuration,
+				templateMode:      scenario.templateMode.toString(),
+				iterations:        ITERATIONS,
+				latencyNanos: [
+					p50:  percentile(latencies, 50),
+					p90:  percentile(latencies, 90),
+					p99:  percentile(latencies, 99),
+					max:  latencies[-1],
+					mean: (latencies as List<Long>).sum().intdiv(latencies.length)
+				],
+				bytesPerIteration: allocated != null ? allocated.intdiv(ITERATIONS) : null
+			]
+		}
+
+		def report = new File(REPORT)
+		report.parentFile?.mkdirs()
+		report.text = JsonOutput.prettyPrint(JsonOutput.toJson([
+			java:              System.getProperty('java.version'),
+			thymeleaf:         Thymeleaf.VERSION,
+			warmupIterations:  WARMUP_ITERATIONS,
+			iterations:        ITERATIONS,
+			scenarios:         results
+		]))
+		println "Performance of ${results.size()} scenarios written to ${report.absolutePath}"
+	}
+
+	/**
+	 * Return the value at the given percentile of some sorted values, using the
+	 * nearest-rank method.
+	 *
+	 * @param sortedValues
+	 * @param percentile
+	 * @return Value at the percentile.
+	 */
+	static long percentile(long[] sortedValues, int percentile) {
+
+		def rank = Math.ceil(percentile / 100 * sortedValues.length) as int
+		return sortedValues[Math.max(rank - 1, 0)]
+	}
+
+	/**
+	 * Process a template the given number of times, statically compiled so that
+	 * little of the time and memory measured is spent outside of Thymeleaf.
+	 *
+	 * @param templateEngine
+	 * @param template
+	 * @param context
+	 * @param iterations
+	 * @return The time taken by each iteration, in nanoseconds.
+	 */
+	@CompileStatic
+	private static long[] process(TemplateEngine templateEngine, String template, IContext context, int iterations) {
+
+		def latencies = new long[iterations]
+		def writer = new StringWriter()
+		for (def i = 0; i < iterations; i++) {
+			writer.buffer.length = 0
+			def start = System.nanoTime()
+			templateEngine.process(template, context, writer)
+			latencies[i] = System.nanoTime() - start
+		}
+		return latencies
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.tests.performance
+
+import nz.net.ultraq.thymeleaf.testing.JUnitTestExecutor
+
+import java.lang.reflect.Modifier
+import org.junit.runners.Parameterized.Parameters
+import org.thymeleaf.context.IContext
+import org.thymeleaf.dialect.IDialect
+import org.thymeleaf.templatemode.TemplateMode
+import org.thymeleaf.testing.templateengine.context.web.WebProcessingContextBuilder
+import org.thymeleaf.testing.templateengine.resolver.StandardTestableResolver
+import org.thymeleaf.testing.templateengine.testable.ITest
+
+/**
+ * A Thymeleaf testing file (.thtest) as run by one of the test executors: the
+ * test as read by the Thymeleaf testing library, and the dialects of the
+ * executor that runs it.  Expected outputs are ignored, as correctness is
+ * already checked by the test executors.
+ *
+ * @author zhanhb
+ */
+class ThtestScenario {
+
+	final String name
+	final String configuration
+	final List<? extends IDialect> dialects
+	final ITest test
+
+	private ThtestScenario(String name, String configuration, List<? extends IDialect> dialects, ITest test) {
+
+		this.name = name
+		this.configuration = configuration
+		this.dialects = dialects
+		this.test = test
+	}
+
+	/**
+	 * Return a scenario for each test file that the given test executor runs,
+	 * with the dialects that executor runs them with.
+	 *
+	 * @param executorClass
+	 * @return List of scenarios, in the order of their file names.
+	 */
+	static List<ThtestScenario> read(Class<? extends JUnitTestExecutor> executorClass) {
+
+		def dialects = executorClass.newInstance().testDialects
+		def parameters = executorClass.methods.find { method ->
+			Modifier.isStatic(method.modifiers) && method.isAnnotationPresent(Parameters)
+		}
+		def testableResolver = new StandardTestableResolver()
+		return (parameters.invoke(null) as List<String>).sort().collect { name ->
+			return new ThtestScenario(name, executorClass.simpleName, dialects,
+				testableResolver.resolve(executorClass.simpleName, "classpath:${name}") as ITest)
+		}
+	}
+
+	/**
+	 * Create the context to process the test with, the same way the Thymeleaf
+	 * testing library does.
+	 *
+	 * @return New context over the test's context variables.
+	 */
+	IContext createContext() {
+
+		return new WebProcessingContextBuilder().build(test)
+	}
+
+	/**
+	 * Return the template mode of the test.
+	 *
+	 * @return Template mode of the main input.
+	 */
+	TemplateMode getTemplateMode() {
+
+		return test.templateMode
+	}
+
+	/**
+	 * Return the input templates of the test.  The main input is made available
+	 * under the name of the scenario, other inputs under the name in their
+	 * {@code %INPUT[...]} directive.
+	 *
+	 * @return Map of template names to their content.
+	 */
+	Map<String, String> getTemplates() {
+
+		def templates = [(name): test.input.readAsText()]
+		test.additionalInputs.each { inputName, input ->
+			templates[inputName] = input.readAsText()
+		}
+		return templates
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 zhanhb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nz.net.ultraq.thymeleaf.tests.performance
+
+import nz.net.ultraq.thymeleaf.tests.MapTemplateResolver
+
+/**
+ * Template resolver over the input templates of a single scenario.
+ *
+ * @author zhanhb
+ */
+class ThtestTemplateResolver extends MapTemplateResolver {
+
+	/**
+	 * Constructor, resolve templates from the inputs of the given scenario.
+	 *
+	 * @param scenario
+	 */
+	ThtestTemplateResolver(ThtestScenario scenario) {
+
+		super(scenario.templates)
+		templateMode = scenario.templateMode
+	}
+}